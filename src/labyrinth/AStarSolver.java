@@ -0,0 +1,78 @@
+package labyrinth;
+
+/**
+ * Finds the shortest path to the nearest exit with an A* search. The
+ * heuristic is the Manhattan distance to the nearest border, which never
+ * overestimates the remaining distance to an exit.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class AStarSolver extends AbstractSolver {
+
+	private final IntHeap _open = new IntHeap();
+	private final VisitedSet _seen = new VisitedSet();
+	private int[] _parent = new int[0];
+	private int[] _cost = new int[0];
+
+	@Override
+	public ESolverType getType() {
+		return ESolverType.AStar;
+	}
+
+	@Override
+	protected int[] search(Grid grid, int start) {
+		if (_parent.length != grid.size()) {
+			_parent = new int[grid.size()];
+			_cost = new int[grid.size()];
+		}
+		_seen.reset(grid.size());
+
+		_open.clear();
+		_seen.add(start);
+		_parent[start] = -1;
+		_cost[start] = 0;
+		_open.add(start, estimate(grid, start));
+
+		while (!_open.isEmpty()) {
+			int priority = _open.minPriority();
+			int tile = _open.removeMin();
+			if (priority != _cost[tile] + estimate(grid, tile)) {
+				// outdated entry, the tile was reached cheaper later on
+				continue;
+			}
+			expanded();
+
+			if (grid.isBorder(tile)) {
+				return tracePath(_parent, tile);
+			}
+
+			int cost = _cost[tile] + 1;
+			int count = grid.getNeighbors(tile, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _neighbors[i];
+				if (_seen.add(neighbor) || cost < _cost[neighbor]) {
+					_parent[neighbor] = tile;
+					_cost[neighbor] = cost;
+					_open.add(neighbor, cost + estimate(grid, neighbor));
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Estimates the distance to the nearest exit.
+	 * 
+	 * @param grid
+	 * @param tile
+	 * @return Manhattan distance to the nearest border
+	 */
+	private static int estimate(Grid grid, int tile) {
+		int x = grid.getX(tile);
+		int y = grid.getY(tile);
+		return Math.min(Math.min(x, grid.getWidth() - 1 - x),
+				Math.min(y, grid.getHeight() - 1 - y));
+	}
+}
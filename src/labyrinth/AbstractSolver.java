@@ -0,0 +1,85 @@
+package labyrinth;
+
+/**
+ * Base class of the solvers which measures the searches.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+abstract class AbstractSolver implements MazeSolver {
+
+	protected final int[] _neighbors = new int[4];
+	protected long _nodesExpanded;
+	private long _elapsedTime;
+
+	@Override
+	public final int[] solve(Grid grid, int start) {
+		long begin = System.nanoTime();
+		_nodesExpanded = 0;
+		try {
+			if (grid.isWall(start)) {
+				return null;
+			}
+			return search(grid, start);
+		} finally {
+			_elapsedTime = System.nanoTime() - begin;
+		}
+	}
+
+	@Override
+	public void tileToggled(Grid grid, int tile) {
+		// nothing is kept between searches by default
+	}
+
+	@Override
+	public long getNodesExpanded() {
+		return _nodesExpanded;
+	}
+
+	@Override
+	public long getElapsedTime() {
+		return _elapsedTime;
+	}
+
+	/**
+	 * Counts an expanded tile. From time to time the count is reported as
+	 * progress of the job the search runs in, which stops the search if the
+	 * job was cancelled.
+	 */
+	protected final void expanded() {
+		if (++_nodesExpanded % BackgroundJob.PROGRESS_INTERVAL == 0) {
+			BackgroundJob.reportProgress(_nodesExpanded);
+		}
+	}
+
+	/**
+	 * Searches the path, the starter tile is known to be empty.
+	 * 
+	 * @param grid
+	 * @param start
+	 * @return
+	 */
+	protected abstract int[] search(Grid grid, int start);
+
+	/**
+	 * Follows the parents from a tile back to the tile without a parent.
+	 * 
+	 * @param parent
+	 *            Parent of every tile, -1 for the root
+	 * @param end
+	 *            Last tile of the path
+	 * @return The path from the root to the end
+	 */
+	protected static int[] tracePath(int[] parent, int end) {
+		int length = 0;
+		for (int tile = end; tile != -1; tile = parent[tile]) {
+			length++;
+		}
+
+		int[] path = new int[length];
+		for (int tile = end; tile != -1; tile = parent[tile]) {
+			path[--length] = tile;
+		}
+		return path;
+	}
+}
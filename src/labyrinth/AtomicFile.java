@@ -0,0 +1,92 @@
+package labyrinth;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+
+/**
+ * Replaces a file without ever leaving it half written: the content goes to
+ * a temporary file next to the target first, which is then moved over the
+ * target. The file gets the permissions of the file it replaces or the
+ * default permissions of new files.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+final class AtomicFile {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Produces the content of a file.
+	 */
+	interface Content {
+		void write(OutputStream out) throws IOException;
+	}
+
+	private AtomicFile() {
+	}
+
+	/**
+	 * Writes a file, replacing it if it exists.
+	 * 
+	 * @param file
+	 * @param content
+	 *            Writes to a buffered stream which must not be closed
+	 * @throws IOException
+	 */
+	public static void write(File file, Content content) throws IOException {
+		Path target = file.toPath().toAbsolutePath();
+		// unlike Files.createTempFile this applies the umask instead of 0600
+		Path temp = File.createTempFile("." + target.getFileName() + ".",
+				".tmp", target.getParent().toFile()).toPath();
+		try {
+			copyPermissions(target, temp);
+			try (OutputStream out = new BufferedOutputStream(
+					new FileOutputStream(temp.toFile()), BUFFER_SIZE)) {
+				content.write(out);
+			}
+			move(temp, target);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Copies the POSIX permissions of a file if it exists and the file system
+	 * has them.
+	 * 
+	 * @param source
+	 * @param target
+	 * @throws IOException
+	 */
+	private static void copyPermissions(Path source, Path target)
+			throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(source,
+				PosixFileAttributeView.class);
+		if (view == null || !Files.exists(source)) {
+			return;
+		}
+		Set<PosixFilePermission> permissions = view.readAttributes()
+				.permissions();
+		Files.setPosixFilePermissions(target, permissions);
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
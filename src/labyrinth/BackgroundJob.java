@@ -0,0 +1,245 @@
+package labyrinth;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * A long operation which runs in the background, so the window never freezes.
+ * Jobs report how much of their work is completed and can be cancelled. They
+ * are never interrupted, as that would close the files of chunked
+ * labyrinths, but have to check from time to time if they should stop.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public abstract class BackgroundJob {
+
+	/**
+	 * Number of jobs which run at the same time, more jobs wait in a queue.
+	 */
+	public static final int MAX_THREADS = 4;
+
+	/**
+	 * Number of steps after which loops report their progress.
+	 */
+	public static final int PROGRESS_INTERVAL = 1 << 12;
+
+	private static final ExecutorService EXECUTOR = createExecutor();
+	private static final ThreadLocal<BackgroundJob> CURRENT = new ThreadLocal<>();
+
+	private final String _name;
+	private final AtomicLong _completed = new AtomicLong();
+	private volatile long _total;
+	private volatile boolean _cancelled;
+	private volatile boolean _finished;
+	private volatile Throwable _error;
+
+	/**
+	 * @param name
+	 *            Describes the job to the user
+	 */
+	protected BackgroundJob(String name) {
+		_name = name;
+	}
+
+	/**
+	 * Uses virtual threads if the runtime has them. They are cheap to create
+	 * and never keep the application alive.
+	 * 
+	 * @return A pool of at most {@link #MAX_THREADS} threads
+	 */
+	private static ExecutorService createExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS,
+				MAX_THREADS, 10, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), createThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static ThreadFactory createThreadFactory() {
+		try {
+			// Thread.ofVirtual().name("labyrinth-job-", 1).factory()
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			Object virtual = Thread.class.getMethod("ofVirtual").invoke(null);
+			virtual = builder.getMethod("name", String.class, long.class)
+					.invoke(virtual, "labyrinth-job-", 1L);
+			return (ThreadFactory) builder.getMethod("factory").invoke(virtual);
+		} catch (ReflectiveOperationException e) {
+			// no virtual threads before Java 21
+		}
+
+		return new ThreadFactory() {
+			private final AtomicInteger _count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "labyrinth-job-"
+						+ _count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Reports the progress of the job running on the current thread and stops
+	 * it if it was cancelled. Does nothing outside of jobs, so code which also
+	 * runs on its own can call it.
+	 * 
+	 * @param completed
+	 *            Amount of work completed so far
+	 * @throws CancellationException
+	 *             If the job was cancelled
+	 */
+	public static void reportProgress(long completed) {
+		BackgroundJob job = CURRENT.get();
+		if (job != null) {
+			job.setCompleted(completed);
+			job.checkCancelled();
+		}
+	}
+
+	/**
+	 * Queues the job to run in the background.
+	 */
+	public void start() {
+		EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				runJob();
+			}
+		});
+	}
+
+	private void runJob() {
+		CURRENT.set(this);
+		try {
+			if (!_cancelled) {
+				execute();
+			}
+		} catch (CancellationException e) {
+			// stopped as requested
+		} catch (Throwable e) {
+			if (!_cancelled) {
+				_error = e;
+			}
+		} finally {
+			CURRENT.remove();
+			_finished = true;
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					done();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Does the work on a background thread. Long loops should call
+	 * {@link #checkCancelled()} or {@link #reportProgress(long)} regularly.
+	 * 
+	 * @throws Exception
+	 *             Passed to {@link #done()} as the error of the job
+	 */
+	protected abstract void execute() throws Exception;
+
+	/**
+	 * Called on the event dispatch thread after the job finished, failed or
+	 * was cancelled. Prints the error by default.
+	 */
+	protected void done() {
+		if (_error != null) {
+			_error.printStackTrace();
+		}
+	}
+
+	/**
+	 * Asks the job to stop. A job which did not start yet never runs.
+	 */
+	public void cancel() {
+		_cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return _cancelled;
+	}
+
+	/**
+	 * @return True once the job does not run anymore
+	 */
+	public boolean isFinished() {
+		return _finished;
+	}
+
+	/**
+	 * @return What made the job fail or null
+	 */
+	public Throwable getError() {
+		return _error;
+	}
+
+	/**
+	 * @throws CancellationException
+	 *             If the job was cancelled
+	 */
+	protected void checkCancelled() {
+		if (_cancelled) {
+			throw new CancellationException(_name + " cancelled");
+		}
+	}
+
+	public String getName() {
+		return _name;
+	}
+
+	/**
+	 * @param total
+	 *            Amount of work of the whole job, 0 if unknown
+	 */
+	protected void setTotal(long total) {
+		_total = total;
+	}
+
+	public long getTotal() {
+		return _total;
+	}
+
+	protected void setCompleted(long completed) {
+		_completed.set(completed);
+	}
+
+	/**
+	 * Adds completed work, may be called by several threads at once.
+	 * 
+	 * @param completed
+	 * @return Amount of work completed so far
+	 */
+	protected long addCompleted(long completed) {
+		return _completed.addAndGet(completed);
+	}
+
+	public long getCompleted() {
+		return _completed.get();
+	}
+
+	/**
+	 * @return Share of the work completed from 0 to 1 or -1 if the amount of
+	 *         work is unknown
+	 */
+	public double getProgress() {
+		long total = _total;
+		if (total <= 0) {
+			return -1;
+		}
+		return Math.min(1, (double) getCompleted() / total);
+	}
+}
@@ -0,0 +1,162 @@
+package labyrinth;
+
+/**
+ * Finds the shortest path to the nearest exit with two breadth first searches
+ * at once, one from the starter tile and one from all exits. The smaller
+ * frontier is expanded a whole layer at a time until the searches meet.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class BidirectionalSolver extends AbstractSolver {
+
+	private final Side _forward = new Side();
+	private final Side _backward = new Side();
+
+	@Override
+	public ESolverType getType() {
+		return ESolverType.Bidirectional;
+	}
+
+	@Override
+	protected int[] search(Grid grid, int start) {
+		if (grid.isBorder(start)) {
+			expanded();
+			return new int[] { start };
+		}
+
+		_forward.reset(grid.size());
+		_backward.reset(grid.size());
+		_forward.visit(start, -1, 0);
+		addExits(grid);
+
+		while (!_forward._frontier.isEmpty() && !_backward._frontier.isEmpty()) {
+			boolean forward = _forward._frontier.size() <= _backward._frontier
+					.size();
+			int[] meeting = forward ? expand(grid, _forward, _backward)
+					: expand(grid, _backward, _forward);
+
+			if (meeting != null) {
+				return forward ? joinPath(meeting[0], meeting[1]) : joinPath(
+						meeting[1], meeting[0]);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Adds all exits to the frontier of the backward search.
+	 * 
+	 * @param grid
+	 */
+	private void addExits(Grid grid) {
+		int width = grid.getWidth();
+		int height = grid.getHeight();
+		for (int x = 0; x < width; x++) {
+			addExit(grid, grid.index(x, 0));
+			addExit(grid, grid.index(x, height - 1));
+		}
+		for (int y = 1; y < height - 1; y++) {
+			addExit(grid, grid.index(0, y));
+			addExit(grid, grid.index(width - 1, y));
+		}
+	}
+
+	private void addExit(Grid grid, int tile) {
+		if (!grid.isWall(tile) && !_backward._visited.contains(tile)) {
+			_backward.visit(tile, -1, 0);
+		}
+	}
+
+	/**
+	 * Expands one layer of a search. All meetings within the layer are
+	 * compared, the one with the shortest total path wins.
+	 * 
+	 * @param grid
+	 * @param side
+	 *            The search to expand
+	 * @param other
+	 *            The search coming from the other side
+	 * @return The tiles where the searches met, the first one belonging to the
+	 *         expanded search, or null if they did not meet yet
+	 */
+	private int[] expand(Grid grid, Side side, Side other) {
+		int[] meeting = null;
+		int shortest = Integer.MAX_VALUE;
+
+		for (int remaining = side._frontier.size(); remaining > 0; remaining--) {
+			int tile = side._frontier.remove();
+			expanded();
+
+			int count = grid.getNeighbors(tile, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _neighbors[i];
+
+				if (other._visited.contains(neighbor)) {
+					int length = side._distance[tile] + 1
+							+ other._distance[neighbor];
+					if (length < shortest) {
+						shortest = length;
+						meeting = new int[] { tile, neighbor };
+					}
+				}
+
+				if (!side._visited.contains(neighbor)) {
+					side.visit(neighbor, tile, side._distance[tile] + 1);
+				}
+			}
+		}
+
+		return meeting;
+	}
+
+	/**
+	 * Joins the path from the starter tile to the meeting point with the path
+	 * from the meeting point to the exit.
+	 * 
+	 * @param forwardTile
+	 *            Last tile reached by the forward search
+	 * @param backwardTile
+	 *            Adjacent tile reached by the backward search
+	 * @return
+	 */
+	private int[] joinPath(int forwardTile, int backwardTile) {
+		int[] head = tracePath(_forward._parent, forwardTile);
+		int length = head.length + _backward._distance[backwardTile] + 1;
+
+		int[] path = new int[length];
+		System.arraycopy(head, 0, path, 0, head.length);
+		int i = head.length;
+		for (int tile = backwardTile; tile != -1; tile = _backward._parent[tile]) {
+			path[i++] = tile;
+		}
+		return path;
+	}
+
+	/**
+	 * State of the search from one side.
+	 */
+	private static class Side {
+		private final IntQueue _frontier = new IntQueue();
+		private final VisitedSet _visited = new VisitedSet();
+		private int[] _parent = new int[0];
+		private int[] _distance = new int[0];
+
+		private void reset(int size) {
+			if (_parent.length != size) {
+				_parent = new int[size];
+				_distance = new int[size];
+			}
+			_visited.reset(size);
+			_frontier.clear();
+		}
+
+		private void visit(int tile, int parent, int distance) {
+			_visited.add(tile);
+			_parent[tile] = parent;
+			_distance[tile] = distance;
+			_frontier.add(tile);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Binary tree algorithm. Every cell is connected either to its upper or to
+ * its left neighbor. Needs no memory besides the grid, but the top row and
+ * the left column always end up as straight corridors.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class BinaryTreeGenerator extends LatticeGenerator {
+
+	@Override
+	public EGeneratorType getType() {
+		return EGeneratorType.BinaryTree;
+	}
+
+	@Override
+	protected void generate(Random random) {
+		for (int row = 0; row < _rows; row++) {
+			for (int column = 0; column < _columns; column++) {
+				int cell = cell(column, row);
+				if (row == 0 && column == 0) {
+					carveCell(cell);
+				} else if (row == 0
+						|| (column > 0 && random.nextBoolean())) {
+					carvePassage(cell, cell - 1);
+				} else {
+					carvePassage(cell, cell - _columns);
+				}
+			}
+		}
+	}
+}
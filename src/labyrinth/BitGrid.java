@@ -0,0 +1,166 @@
+package labyrinth;
+
+import java.util.Arrays;
+
+/**
+ * Compact grid storing the wall, start and path flags as bits in
+ * <code>long</code> words. Every row starts at a word boundary, so rows can be
+ * scanned and counted word by word and different rows never share a word.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class BitGrid extends Grid {
+
+	private final int _stride;
+	private final long[] _walls;
+	private final long[] _start;
+	private final long[] _path;
+
+	/**
+	 * Creates a grid completely filled with walls.
+	 * 
+	 * @param width
+	 *            Width in tiles
+	 * @param height
+	 *            Height in tiles
+	 */
+	public BitGrid(int width, int height) {
+		super(width, height);
+		_stride = (width + 63) >>> 6;
+		_walls = new long[_stride * height];
+		_start = new long[_walls.length];
+		_path = new long[_walls.length];
+
+		long last = (width & 63) == 0 ? -1L : (1L << width) - 1;
+		for (int y = 0; y < height && _stride > 0; y++) {
+			int offset = y * _stride;
+			Arrays.fill(_walls, offset, offset + _stride, -1L);
+			_walls[offset + _stride - 1] = last;
+		}
+	}
+
+	/**
+	 * Creates a copy of another grid.
+	 * 
+	 * @param other
+	 */
+	private BitGrid(BitGrid other) {
+		super(other._width, other._height);
+		_stride = other._stride;
+		_walls = other._walls.clone();
+		_start = other._start.clone();
+		_path = other._path.clone();
+	}
+
+	@Override
+	public Grid copy() {
+		return new BitGrid(this);
+	}
+
+	@Override
+	public boolean isWall(int x, int y) {
+		return contains(x, y) && get(_walls, x, y);
+	}
+
+	@Override
+	public boolean isWall(int index) {
+		return get(_walls, index);
+	}
+
+	@Override
+	public void setWall(int index, boolean wall) {
+		set(_walls, index, wall);
+		_modCount++;
+	}
+
+	/**
+	 * Carves out a tile without counting the change, so generators can carve
+	 * from several threads at once as long as they never share a word of 64
+	 * tiles. They call {@link Grid#wallsChanged()} when done.
+	 * 
+	 * @param index
+	 */
+	void carveUncounted(int index) {
+		set(_walls, index, false);
+	}
+
+	@Override
+	public boolean isStart(int index) {
+		return get(_start, index);
+	}
+
+	@Override
+	public void setStart(int index, boolean start) {
+		set(_start, index, start);
+	}
+
+	@Override
+	public boolean isPath(int index) {
+		return get(_path, index);
+	}
+
+	@Override
+	public void setPath(int index, boolean path) {
+		set(_path, index, path);
+	}
+
+	@Override
+	public void clearMarks() {
+		Arrays.fill(_start, 0L);
+		Arrays.fill(_path, 0L);
+	}
+
+	@Override
+	public void copyRow(int y, long[] words) {
+		System.arraycopy(_walls, y * _stride, words, 0, _stride);
+	}
+
+	@Override
+	public void setRow(int y, long[] words) {
+		int offset = y * _stride;
+		System.arraycopy(words, 0, _walls, offset, _stride);
+		if ((_width & 63) != 0) {
+			_walls[offset + _stride - 1] &= (1L << _width) - 1;
+		}
+		_modCount++;
+	}
+
+	@Override
+	public int countWalls(int y) {
+		int count = 0;
+		for (int i = y * _stride, end = i + _stride; i < end; i++) {
+			count += Long.bitCount(_walls[i]);
+		}
+		return count;
+	}
+
+	@Override
+	public long countWalls() {
+		long count = 0;
+		for (long word : _walls) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	private boolean get(long[] plane, int index) {
+		int y = index / _width;
+		return get(plane, index - y * _width, y);
+	}
+
+	private boolean get(long[] plane, int x, int y) {
+		return (plane[y * _stride + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	private void set(long[] plane, int index, boolean value) {
+		int y = index / _width;
+		int x = index - y * _width;
+		int word = y * _stride + (x >>> 6);
+		if (value) {
+			plane[word] |= 1L << x;
+		} else {
+			plane[word] &= ~(1L << x);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package labyrinth;
+
+/**
+ * Finds the shortest path from a tile to the nearest exit with an iterative
+ * breadth first search. Needs time and memory linear to the number of tiles
+ * and never recurses.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class BreadthFirstSolver extends AbstractSolver {
+
+	private final IntQueue _queue = new IntQueue();
+	private final VisitedSet _visited = new VisitedSet();
+	private int[] _parent = new int[0];
+
+	@Override
+	public ESolverType getType() {
+		return ESolverType.BreadthFirst;
+	}
+
+	@Override
+	protected int[] search(Grid grid, int start) {
+		if (_parent.length != grid.size()) {
+			_parent = new int[grid.size()];
+		}
+		_visited.reset(grid.size());
+
+		_queue.clear();
+		_queue.add(start);
+		_visited.add(start);
+		_parent[start] = -1;
+
+		while (!_queue.isEmpty()) {
+			int tile = _queue.remove();
+			expanded();
+
+			if (grid.isBorder(tile)) {
+				return tracePath(_parent, tile);
+			}
+
+			int count = grid.getNeighbors(tile, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _neighbors[i];
+				if (_visited.add(neighbor)) {
+					_parent[neighbor] = tile;
+					_queue.add(neighbor);
+				}
+			}
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,169 @@
+package labyrinth;
+
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import javax.swing.JOptionPane;
+
+import labyrinth.MazeGenerator.CarveListener;
+import labyrinth.MazeGenerator.EGeneratorType;
+
+/**
+ * This class can generate a new labyrinth by carving it out. It carves into a
+ * grid of its own and publishes copies of it to the model from time to time,
+ * so the model never shows a grid which is being changed. A parallel generator
+ * carves on several threads at once, its grid is only published once all of
+ * them are done. The progress is the number of carved tiles.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class CarveJob extends BackgroundJob implements CarveListener {
+
+	/**
+	 * Minimum time between two snapshots of a fast generation in
+	 * nanoseconds.
+	 */
+	private static final long PUBLISH_INTERVAL = 100000000L;
+
+	/**
+	 * Number of carved tiles after which the time is checked again.
+	 */
+	private static final int PUBLISH_CHECK = 1024;
+
+	private LabyrinthModel _model;
+	private int _width;
+	private int _height;
+	private boolean _compact;
+	private Grid _buffer;
+	private MazeGenerator _generator;
+	private ExitPiercer _exitPiercer;
+	private long _seed;
+	private Random _random;
+	private boolean _slow;
+	private final DirtyCells _changes = new DirtyCells();
+	private volatile boolean _publishing;
+	private volatile long _published = System.nanoTime();
+
+	/**
+	 * Create carver.
+	 * 
+	 * @param labyrinthModel
+	 * @param width
+	 *            Width of labyrinth in tiles
+	 * @param height
+	 *            Height of labyrinth in tiles
+	 * @param compact
+	 *            If the grid to carve into should be bit-packed even if it is
+	 *            small
+	 * @param generator
+	 *            Algorithm to carve out the labyrinth
+	 * @param exitPiercer
+	 *            Opens the exits after carving
+	 * @param seed
+	 *            Seed of all random decisions, the same seed and size always
+	 *            give the same labyrinth
+	 * @param slow
+	 *            If the carving should be slow so it can be visualized.
+	 */
+	public CarveJob(LabyrinthModel labyrinthModel, int width, int height,
+			boolean compact, MazeGenerator generator, ExitPiercer exitPiercer,
+			long seed, boolean slow) {
+		super("Generating labyrinth");
+		_model = labyrinthModel;
+		_width = width;
+		_height = height;
+		_compact = compact;
+		_generator = generator;
+		_exitPiercer = exitPiercer;
+		_seed = seed;
+		_random = new MazeRandom(seed);
+		_slow = slow;
+		// every cell of the lattice and all but one passage between them
+		setTotal(2L * ((width - 1) / 2) * ((height - 1) / 2) - 1);
+	}
+
+	@Override
+	protected void execute() {
+		_buffer = Grid.create(_width, _height, _compact);
+		if (_width < 3 || _height < 3) {
+			_model.carvingFinished(this, _buffer);
+			return;
+		}
+
+		try {
+			// copies would be torn while other threads carve
+			_publishing = _generator.getType() != EGeneratorType.Parallel;
+			_generator.generate(_buffer, _random, this);
+			if (!_publishing) {
+				_publishing = true;
+				_changes.addAll();
+			}
+			checkCancelled();
+			for (int exit : _exitPiercer.pierce(_buffer, _random)) {
+				carved(exit);
+			}
+		} catch (CancellationException e) {
+			// no thread carves anymore, the tiles carved so far are kept
+			_model.carvingFinished(this, _buffer);
+			throw e;
+		}
+		_model.carvingFinished(this, _buffer);
+	}
+
+	@Override
+	protected void done() {
+		if (getError() instanceof OutOfMemoryError) {
+			JOptionPane.showMessageDialog(null,
+					"Could not generate a labyrinth this big!");
+		} else {
+			super.done();
+		}
+		_model.jobEnded(this);
+	}
+
+	public long getSeed() {
+		return _seed;
+	}
+
+	/**
+	 * May be called by several threads at once if the generator is parallel.
+	 * Stops the generator if the job was cancelled.
+	 */
+	@Override
+	public void carved(int tile) {
+		checkCancelled();
+		long count = addCompleted(1);
+		if (!_publishing) {
+			return;
+		}
+		_changes.add(_buffer.getX(tile) - 1, _buffer.getY(tile) - 1, 3, 3);
+
+		if (_slow) {
+			publish();
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				// jobs are not interrupted
+				Thread.currentThread().interrupt();
+			}
+		} else if (count % PUBLISH_CHECK == 0
+				&& System.nanoTime() - _published > PUBLISH_INTERVAL) {
+			publish();
+		}
+	}
+
+	/**
+	 * Hands a copy of the buffer and the cells carved since the last copy to
+	 * the model.
+	 */
+	private synchronized void publish() {
+		_published = System.nanoTime();
+		// taken before copying, so every taken cell is carved in the copy
+		List<Rectangle> changes = _changes.take(_buffer.getWidth(),
+				_buffer.getHeight());
+		_model.publish(this, _buffer.copy(), changes);
+	}
+}
@@ -0,0 +1,216 @@
+package labyrinth;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the recently used chunks of a {@link ChunkedGrid} in memory. When the
+ * memory budget is exceeded, the least recently used chunk is dropped.
+ * Chunks which differ from the file, because walls were toggled or tiles are
+ * marked as start or path, are pinned and never dropped.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class ChunkCache {
+
+	/**
+	 * Default memory budget in bytes.
+	 */
+	public static final long DEFAULT_BUDGET = 64L << 20;
+
+	private static final int WORDS = ChunkedMazeFile.CHUNK_SIZE
+			* ChunkedMazeFile.CHUNK_SIZE / 64;
+
+	private final ChunkedMazeFile _file;
+	private final int _capacity;
+	private final LinkedHashMap<Integer, Chunk> _chunks = new LinkedHashMap<>(
+			16, 0.75f, true);
+
+	/**
+	 * @param file
+	 *            Source of the chunks
+	 * @param budget
+	 *            Memory budget in bytes. At least a full row of chunks is
+	 *            always kept, so a row of the labyrinth can be read without
+	 *            loading chunks twice.
+	 */
+	public ChunkCache(ChunkedMazeFile file, long budget) {
+		_file = file;
+		long capacity = budget / (8L * WORDS);
+		_capacity = (int) Math.min(Integer.MAX_VALUE,
+				Math.max(capacity, file.getChunkColumns() + 1));
+	}
+
+	/**
+	 * Looks up a chunk and loads it from the file if it is not in memory.
+	 * 
+	 * @param key
+	 *            Number of the chunk, counted row by row
+	 * @return
+	 * @throws IOException
+	 */
+	public Chunk get(int key) throws IOException {
+		Chunk chunk = _chunks.get(key);
+		if (chunk == null) {
+			chunk = new Chunk();
+			_file.readChunk(key, chunk._walls);
+			_chunks.put(key, chunk);
+			evict(chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * @return Number of chunks in memory
+	 */
+	public int size() {
+		return _chunks.size();
+	}
+
+	/**
+	 * Resets the start and path flags of all chunks in memory.
+	 */
+	public void clearMarks() {
+		for (Chunk chunk : _chunks.values()) {
+			chunk.clearMarks();
+		}
+		evict(null);
+	}
+
+	/**
+	 * Drops the least recently used chunks until the budget is met or only
+	 * pinned chunks are left.
+	 * 
+	 * @param keep
+	 *            Chunk which is about to be used and must not be dropped
+	 */
+	private void evict(Chunk keep) {
+		Iterator<Chunk> chunks = _chunks.values().iterator();
+		while (_chunks.size() > _capacity && chunks.hasNext()) {
+			Chunk chunk = chunks.next();
+			if (chunk != keep && !chunk.isPinned()) {
+				chunks.remove();
+			}
+		}
+	}
+
+	/**
+	 * The wall, start and path bits of a chunk, <code>CHUNK_SIZE / 64</code>
+	 * words per row. The start and path bits only exist while a tile is
+	 * marked.
+	 */
+	static class Chunk {
+		private final long[] _walls = new long[WORDS];
+		private long[] _start;
+		private long[] _path;
+		private int _marks;
+		private boolean _modified;
+
+		public boolean isWall(int bit) {
+			return get(_walls, bit);
+		}
+
+		public void setWall(int bit, boolean wall) {
+			set(_walls, bit, wall);
+			_modified = true;
+		}
+
+		public boolean isStart(int bit) {
+			return _start != null && get(_start, bit);
+		}
+
+		public void setStart(int bit, boolean start) {
+			if (_start == null) {
+				if (!start) {
+					return;
+				}
+				_start = new long[WORDS];
+			}
+			mark(_start, bit, start);
+		}
+
+		public boolean isPath(int bit) {
+			return _path != null && get(_path, bit);
+		}
+
+		public void setPath(int bit, boolean path) {
+			if (_path == null) {
+				if (!path) {
+					return;
+				}
+				_path = new long[WORDS];
+			}
+			mark(_path, bit, path);
+		}
+
+		/**
+		 * Copies the wall bits of a row of this chunk.
+		 * 
+		 * @param y
+		 *            Row within the chunk
+		 * @param words
+		 * @param offset
+		 *            Position of the first word in words
+		 * @param count
+		 *            Number of words to copy
+		 */
+		public void copyRow(int y, long[] words, int offset, int count) {
+			System.arraycopy(_walls, y * (ChunkedMazeFile.CHUNK_SIZE >>> 6),
+					words, offset, count);
+		}
+
+		/**
+		 * Replaces the wall bits of a row of this chunk.
+		 * 
+		 * @param y
+		 *            Row within the chunk
+		 * @param words
+		 * @param offset
+		 *            Position of the first word in words
+		 * @param count
+		 *            Number of words to copy
+		 */
+		public void setRow(int y, long[] words, int offset, int count) {
+			System.arraycopy(words, offset, _walls, y
+					* (ChunkedMazeFile.CHUNK_SIZE >>> 6), count);
+			_modified = true;
+		}
+
+		/**
+		 * @return If the chunk differs from the file and must be kept
+		 */
+		public boolean isPinned() {
+			return _modified || _marks > 0;
+		}
+
+		private void clearMarks() {
+			_start = null;
+			_path = null;
+			_marks = 0;
+		}
+
+		private void mark(long[] plane, int bit, boolean value) {
+			if (get(plane, bit) != value) {
+				set(plane, bit, value);
+				_marks += value ? 1 : -1;
+				if (_marks == 0) {
+					clearMarks();
+				}
+			}
+		}
+
+		private static boolean get(long[] plane, int bit) {
+			return (plane[bit >>> 6] & (1L << bit)) != 0;
+		}
+
+		private static void set(long[] plane, int bit, boolean value) {
+			if (value) {
+				plane[bit >>> 6] |= 1L << bit;
+			} else {
+				plane[bit >>> 6] &= ~(1L << bit);
+			}
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package labyrinth;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOError;
+import java.io.IOException;
+
+import labyrinth.ChunkCache.Chunk;
+
+/**
+ * Grid backed by a {@link ChunkedMazeFile}. Only the chunks which are
+ * actually looked at are read from the file and kept in a {@link ChunkCache}
+ * with a fixed memory budget, so huge labyrinths open instantly. Read errors
+ * after opening the file are thrown as {@link IOError}. The cells are
+ * accessed under the lock of the grid, as the chunk cache is shared by the
+ * painter and a search running in the background.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class ChunkedGrid extends Grid implements Closeable {
+
+	private static final int SHIFT = Integer
+			.numberOfTrailingZeros(ChunkedMazeFile.CHUNK_SIZE);
+	private static final int MASK = ChunkedMazeFile.CHUNK_SIZE - 1;
+	private static final int WORDS_PER_ROW = ChunkedMazeFile.CHUNK_SIZE >>> 6;
+
+	private final ChunkedMazeFile _file;
+	private final ChunkCache _cache;
+	private final int _chunkColumns;
+
+	// most lookups hit the same chunk as the previous one
+	private int _lastKey = -1;
+	private Chunk _lastChunk;
+
+	private ChunkedGrid(ChunkedMazeFile file, long budget) {
+		super(file.getWidth(), file.getHeight());
+		_file = file;
+		_cache = new ChunkCache(file, budget);
+		_chunkColumns = file.getChunkColumns();
+	}
+
+	/**
+	 * Opens a chunked labyrinth file.
+	 * 
+	 * @param file
+	 * @param budget
+	 *            Memory budget of the chunk cache in bytes
+	 * @return
+	 * @throws IOException
+	 */
+	public static ChunkedGrid open(File file, long budget) throws IOException {
+		return new ChunkedGrid(ChunkedMazeFile.open(file), budget);
+	}
+
+	/**
+	 * @return Seed the labyrinth was generated with or null if unknown
+	 */
+	public Long getSeed() {
+		return _file.getSeed();
+	}
+
+	/**
+	 * @return Number of chunks in memory
+	 */
+	public synchronized int getLoadedChunks() {
+		return _cache.size();
+	}
+
+	@Override
+	public synchronized boolean isWall(int index) {
+		int y = index / _width;
+		int x = index - y * _width;
+		return chunk(x, y).isWall(bit(x, y));
+	}
+
+	@Override
+	public synchronized boolean isWall(int x, int y) {
+		return contains(x, y) && chunk(x, y).isWall(bit(x, y));
+	}
+
+	@Override
+	public synchronized void setWall(int index, boolean wall) {
+		int y = index / _width;
+		int x = index - y * _width;
+		chunk(x, y).setWall(bit(x, y), wall);
+		_modCount++;
+	}
+
+	@Override
+	public synchronized boolean isStart(int index) {
+		int y = index / _width;
+		int x = index - y * _width;
+		return chunk(x, y).isStart(bit(x, y));
+	}
+
+	@Override
+	public synchronized void setStart(int index, boolean start) {
+		int y = index / _width;
+		int x = index - y * _width;
+		chunk(x, y).setStart(bit(x, y), start);
+	}
+
+	@Override
+	public synchronized boolean isPath(int index) {
+		int y = index / _width;
+		int x = index - y * _width;
+		return chunk(x, y).isPath(bit(x, y));
+	}
+
+	@Override
+	public synchronized void setPath(int index, boolean path) {
+		int y = index / _width;
+		int x = index - y * _width;
+		chunk(x, y).setPath(bit(x, y), path);
+	}
+
+	@Override
+	public synchronized void clearMarks() {
+		_cache.clearMarks();
+		// the last chunk may have been dropped
+		_lastKey = -1;
+		_lastChunk = null;
+	}
+
+	@Override
+	public synchronized void copyRow(int y, long[] words) {
+		int stride = (_width + 63) >>> 6;
+		for (int column = 0; column < _chunkColumns; column++) {
+			int offset = column * WORDS_PER_ROW;
+			chunk(column << SHIFT, y).copyRow(y & MASK, words, offset,
+					Math.min(WORDS_PER_ROW, stride - offset));
+		}
+	}
+
+	@Override
+	public synchronized void setRow(int y, long[] words) {
+		int stride = (_width + 63) >>> 6;
+		for (int column = 0; column < _chunkColumns; column++) {
+			int offset = column * WORDS_PER_ROW;
+			chunk(column << SHIFT, y).setRow(y & MASK, words, offset,
+					Math.min(WORDS_PER_ROW, stride - offset));
+		}
+		_modCount++;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		_file.close();
+	}
+
+	private Chunk chunk(int x, int y) {
+		int key = (y >>> SHIFT) * _chunkColumns + (x >>> SHIFT);
+		if (key != _lastKey) {
+			try {
+				_lastChunk = _cache.get(key);
+			} catch (IOException e) {
+				throw new IOError(e);
+			}
+			_lastKey = key;
+		}
+		return _lastChunk;
+	}
+
+	private static int bit(int x, int y) {
+		return ((y & MASK) << SHIFT) + (x & MASK);
+	}
+}
@@ -0,0 +1,270 @@
+package labyrinth;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File format for very large labyrinths which can be read chunk by chunk.
+ * The labyrinth is split into square chunks of {@link #CHUNK_SIZE} tiles,
+ * which are stored bit-packed and found through an index, so any part of the
+ * labyrinth can be read without touching the rest. All numbers are big
+ * endian.
+ * 
+ * <pre>
+ * int     magic "MZCK"
+ * int     version
+ * int     width
+ * int     height
+ * int     chunk size
+ * byte    1 if a seed follows, 0 otherwise
+ * long    seed the labyrinth was generated with
+ * long[]  file offset of every chunk, row by row
+ * long[]  wall bits of every chunk row by row, chunk size / 64 words per row
+ * </pre>
+ * 
+ * The chunks at the right and bottom border are padded with empty tiles.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class ChunkedMazeFile implements Closeable {
+
+	public static final String EXTENSION = ".mazec";
+
+	/**
+	 * Width and height of a chunk in tiles, a multiple of 64.
+	 */
+	public static final int CHUNK_SIZE = 256;
+
+	private static final int MAGIC = 0x4d5a434b;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 29;
+
+	private final FileChannel _channel;
+	private final int _width;
+	private final int _height;
+	private final Long _seed;
+	private final long[] _offsets;
+	private final ByteBuffer _buffer;
+
+	private ChunkedMazeFile(FileChannel channel) throws IOException {
+		_channel = channel;
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(header, 0);
+		if (header.getInt() != MAGIC) {
+			throw new IOException("Not a chunked labyrinth file");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported labyrinth file version "
+					+ version);
+		}
+		_width = header.getInt();
+		_height = header.getInt();
+		if (_width < 0 || _height < 0
+				|| (long) _width * _height > Integer.MAX_VALUE) {
+			throw new IOException(String.format(
+					"Invalid labyrinth size %dx%d", _width, _height));
+		}
+		int chunkSize = header.getInt();
+		if (chunkSize != CHUNK_SIZE) {
+			throw new IOException("Unsupported chunk size " + chunkSize);
+		}
+		_seed = header.get() != 0 ? header.getLong() : null;
+
+		_offsets = new long[getChunkColumns() * getChunkRows()];
+		ByteBuffer index = ByteBuffer.allocate(8 * _offsets.length);
+		readFully(index, HEADER_SIZE);
+		index.asLongBuffer().get(_offsets);
+
+		_buffer = ByteBuffer.allocate(chunkBytes());
+	}
+
+	/**
+	 * Opens a file to read chunks from it. Only the header and the index are
+	 * read right away.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static ChunkedMazeFile open(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ);
+		try {
+			return new ChunkedMazeFile(channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks if a file starts with the magic number of this format.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isChunked(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(4);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					return false;
+				}
+			}
+			return buffer.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * Writes a labyrinth, replacing the file if it exists.
+	 * 
+	 * @param grid
+	 * @param seed
+	 *            Seed the labyrinth was generated with or null if unknown
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(final Grid grid, final Long seed, File file)
+			throws IOException {
+		AtomicFile.write(file, new AtomicFile.Content() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				ChunkedMazeFile.write(grid, seed, out);
+			}
+		});
+	}
+
+	/**
+	 * Writes a labyrinth to a stream, one band of chunks at a time. The
+	 * stream is not closed.
+	 * 
+	 * @param grid
+	 * @param seed
+	 *            Seed the labyrinth was generated with or null if unknown
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void write(Grid grid, Long seed, OutputStream out)
+			throws IOException {
+		int width = grid.getWidth();
+		int height = grid.getHeight();
+		int columns = chunks(width);
+		int rows = chunks(height);
+		int chunkBytes = chunkBytes();
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 8 * columns
+				* rows);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(width);
+		header.putInt(height);
+		header.putInt(CHUNK_SIZE);
+		header.put((byte) (seed != null ? 1 : 0));
+		header.putLong(seed != null ? seed : 0L);
+		long offset = header.capacity();
+		for (int chunk = 0; chunk < columns * rows; chunk++) {
+			header.putLong(offset);
+			offset += chunkBytes;
+		}
+		out.write(header.array());
+
+		int wordsPerRow = CHUNK_SIZE >>> 6;
+		int stride = (width + 63) >>> 6;
+		long[][] band = new long[CHUNK_SIZE][columns * wordsPerRow];
+		ByteBuffer chunk = ByteBuffer.allocate(chunkBytes);
+		LongBuffer chunkWords = chunk.asLongBuffer();
+
+		for (int chunkRow = 0; chunkRow < rows; chunkRow++) {
+			for (int y = 0; y < CHUNK_SIZE; y++) {
+				int row = chunkRow * CHUNK_SIZE + y;
+				if (row < height) {
+					grid.copyRow(row, band[y]);
+				}
+				for (int i = row < height ? stride : 0; i < band[y].length; i++) {
+					band[y][i] = 0L;
+				}
+			}
+			for (int column = 0; column < columns; column++) {
+				chunkWords.clear();
+				for (int y = 0; y < CHUNK_SIZE; y++) {
+					chunkWords.put(band[y], column * wordsPerRow, wordsPerRow);
+				}
+				out.write(chunk.array());
+			}
+		}
+	}
+
+	public int getWidth() {
+		return _width;
+	}
+
+	public int getHeight() {
+		return _height;
+	}
+
+	/**
+	 * @return Seed the labyrinth was generated with or null if unknown
+	 */
+	public Long getSeed() {
+		return _seed;
+	}
+
+	public int getChunkColumns() {
+		return chunks(_width);
+	}
+
+	public int getChunkRows() {
+		return chunks(_height);
+	}
+
+	/**
+	 * Reads the wall bits of a chunk.
+	 * 
+	 * @param chunk
+	 *            Number of the chunk, counted row by row
+	 * @param walls
+	 *            Receives the bits, <code>CHUNK_SIZE / 64</code> words per
+	 *            row
+	 * @throws IOException
+	 */
+	public void readChunk(int chunk, long[] walls) throws IOException {
+		_buffer.clear();
+		readFully(_buffer, _offsets[chunk]);
+		_buffer.asLongBuffer().get(walls);
+	}
+
+	@Override
+	public void close() throws IOException {
+		_channel.close();
+	}
+
+	private void readFully(ByteBuffer buffer, long position)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			if (_channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Labyrinth file is truncated");
+			}
+		}
+		buffer.flip();
+	}
+
+	private static int chunks(int size) {
+		return (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+
+	private static int chunkBytes() {
+		return CHUNK_SIZE * CHUNK_SIZE / 8;
+	}
+}
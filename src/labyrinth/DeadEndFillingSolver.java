@@ -0,0 +1,130 @@
+package labyrinth;
+
+/**
+ * Solves the labyrinth by dead-end filling. Every empty tile with only one
+ * empty neighbor that is neither the starter tile nor an exit gets filled,
+ * until no dead ends are left. The remaining tiles contain all paths from the
+ * starter tile to the exits, the shortest one of them is then searched with a
+ * breadth first search over the remaining tiles.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class DeadEndFillingSolver extends AbstractSolver {
+
+	private final IntQueue _queue = new IntQueue();
+	private final VisitedSet _filled = new VisitedSet();
+	private final VisitedSet _visited = new VisitedSet();
+	private final int[] _fillNeighbors = new int[4];
+	private int[] _parent = new int[0];
+
+	@Override
+	public ESolverType getType() {
+		return ESolverType.DeadEndFilling;
+	}
+
+	@Override
+	protected int[] search(Grid grid, int start) {
+		if (_parent.length != grid.size()) {
+			_parent = new int[grid.size()];
+		}
+		fillDeadEnds(grid, start);
+		return searchRemaining(grid, start);
+	}
+
+	/**
+	 * Fills all dead ends and the corridors leading to them.
+	 * 
+	 * @param grid
+	 * @param start
+	 */
+	private void fillDeadEnds(Grid grid, int start) {
+		_filled.reset(grid.size());
+		_queue.clear();
+
+		for (int tile = 0; tile < grid.size(); tile++) {
+			if (tile % BackgroundJob.PROGRESS_INTERVAL == 0) {
+				// no tile is expanded yet, only stops a cancelled search
+				BackgroundJob.reportProgress(_nodesExpanded);
+			}
+			if (isDeadEnd(grid, tile, start)) {
+				_filled.add(tile);
+				_queue.add(tile);
+			}
+		}
+
+		while (!_queue.isEmpty()) {
+			int tile = _queue.remove();
+			expanded();
+
+			int count = grid.getNeighbors(tile, false, _fillNeighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _fillNeighbors[i];
+				if (isDeadEnd(grid, neighbor, start)) {
+					_filled.add(neighbor);
+					_queue.add(neighbor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if a tile is an unfilled empty tile with at most one unfilled
+	 * empty neighbor which is neither the starter tile nor an exit.
+	 * 
+	 * @param grid
+	 * @param tile
+	 * @param start
+	 * @return
+	 */
+	private boolean isDeadEnd(Grid grid, int tile, int start) {
+		if (tile == start || grid.isWall(tile) || _filled.contains(tile)
+				|| grid.isBorder(tile)) {
+			return false;
+		}
+
+		int open = 0;
+		int count = grid.getNeighbors(tile, false, _neighbors);
+		for (int i = 0; i < count; i++) {
+			if (!_filled.contains(_neighbors[i])) {
+				open++;
+			}
+		}
+		return open <= 1;
+	}
+
+	/**
+	 * Searches the shortest path through the tiles which were not filled.
+	 * 
+	 * @param grid
+	 * @param start
+	 * @return
+	 */
+	private int[] searchRemaining(Grid grid, int start) {
+		_visited.reset(grid.size());
+		_queue.clear();
+		_queue.add(start);
+		_visited.add(start);
+		_parent[start] = -1;
+
+		while (!_queue.isEmpty()) {
+			int tile = _queue.remove();
+			expanded();
+
+			if (grid.isBorder(tile)) {
+				return tracePath(_parent, tile);
+			}
+
+			int count = grid.getNeighbors(tile, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _neighbors[i];
+				if (!_filled.contains(neighbor) && _visited.add(neighbor)) {
+					_parent[neighbor] = tile;
+					_queue.add(neighbor);
+				}
+			}
+		}
+
+		return null;
+	}
+}
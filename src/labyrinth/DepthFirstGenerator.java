@@ -0,0 +1,109 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Carves the labyrinth tile by tile with a randomized depth first search.
+ * Every tile next to the current one which has 3 walls as neighbors can be
+ * carved out, so the passages are one tile wide without a fixed lattice.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class DepthFirstGenerator implements MazeGenerator {
+
+	private final IntStack _stack = new IntStack();
+	private final int[] _neighbors = new int[4];
+	private final int[] _wallNeighbors = new int[4];
+
+	@Override
+	public EGeneratorType getType() {
+		return EGeneratorType.DepthFirst;
+	}
+
+	@Override
+	public void generate(Grid grid, Random random, CarveListener listener) {
+		_stack.clear();
+		_stack.push(getStarterTile(grid, random));
+		listener.carved(_stack.peek());
+
+		carve(grid, random, listener);
+	}
+
+	/**
+	 * Chooses a random tile inside the labyrinth that is not a border tile.
+	 * 
+	 * @param grid
+	 * @param random
+	 * @return Index of the starter tile
+	 */
+	private int getStarterTile(Grid grid, Random random) {
+		int start = random.nextInt(grid.size() - 1);
+		boolean notGood = true;
+		while (notGood) {
+			if (grid.isBorder(start)) {
+				start = random.nextInt(grid.size() - 1);
+				continue;
+			}
+			notGood = false;
+		}
+		grid.setWall(start, false);
+		return start;
+	}
+
+	/**
+	 * Carves out the paths. It takes the last element on the stack and fetches
+	 * its wall neighbors. It goes through the neighbors in a random order. If
+	 * the neighbor has 3 walls as neighbors it carves it out and pushes it on
+	 * the stack. When a position is reached where no more carving is possible
+	 * the stack gets popped and it goes back the carved out path to search a
+	 * tile that can be carved out until the whole labyrinth is carved out.
+	 * 
+	 * @param grid
+	 * @param random
+	 * @param listener
+	 */
+	private void carve(Grid grid, Random random, CarveListener listener) {
+		while (!_stack.isEmpty()) {
+			int tile = carveNeighbor(grid, random, _stack.peek());
+			if (tile < 0) {
+				_stack.pop();
+			} else {
+				listener.carved(tile);
+			}
+		}
+	}
+
+	/**
+	 * Carves out a random wall neighbor of the tile which has 3 walls as
+	 * neighbors and pushes it on the stack.
+	 * 
+	 * @param grid
+	 * @param random
+	 * @param tile
+	 * @return Index of the carved out neighbor or -1 if none could be carved
+	 */
+	private int carveNeighbor(Grid grid, Random random, int tile) {
+		int count = grid.getNeighbors(tile, true, _neighbors);
+
+		// Fisher-Yates shuffle, the labyrinth of a seed depends on these draws
+		// and on the neighbor order of Grid.getNeighbors
+		for (int i = count; i > 1; i--) {
+			int j = random.nextInt(i);
+			int swap = _neighbors[i - 1];
+			_neighbors[i - 1] = _neighbors[j];
+			_neighbors[j] = swap;
+		}
+
+		for (int i = 0; i < count; i++) {
+			int neighbor = _neighbors[i];
+			if (grid.getNeighbors(neighbor, true, _wallNeighbors) >= 3) {
+				grid.setWall(neighbor, false);
+				_stack.push(neighbor);
+				return neighbor;
+			}
+		}
+
+		return -1;
+	}
+}
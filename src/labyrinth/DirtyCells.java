@@ -0,0 +1,121 @@
+package labyrinth;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the rectangles of cells which changed since the labyrinth was
+ * painted the last time. A rectangle which lies in the last added one or
+ * forms a rectangle together with it is merged into it, so adding stays
+ * cheap even while a labyrinth is generated. When too many rectangles pile
+ * up they are replaced by their bounds.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class DirtyCells {
+
+	private static final int MAX_RECTANGLES = 1024;
+
+	private final List<Rectangle> _rectangles = new ArrayList<>();
+	private boolean _all;
+
+	/**
+	 * Marks a rectangle of cells as changed.
+	 * 
+	 * @param x
+	 *            First column
+	 * @param y
+	 *            First row
+	 * @param width
+	 *            Number of columns
+	 * @param height
+	 *            Number of rows
+	 */
+	public synchronized void add(int x, int y, int width, int height) {
+		if (_all) {
+			return;
+		}
+		Rectangle rectangle = new Rectangle(x, y, width, height);
+		if (!_rectangles.isEmpty()) {
+			Rectangle last = _rectangles.get(_rectangles.size() - 1);
+			Rectangle union = last.union(rectangle);
+			Rectangle overlap = last.intersection(rectangle);
+			long area = (long) last.width * last.height
+					+ (long) width * height;
+			if (!overlap.isEmpty()) {
+				area -= (long) overlap.width * overlap.height;
+			}
+			if ((long) union.width * union.height <= area) {
+				last.setBounds(union);
+				return;
+			}
+		}
+
+		_rectangles.add(rectangle);
+		if (_rectangles.size() > MAX_RECTANGLES) {
+			Rectangle bounds = new Rectangle(rectangle);
+			for (Rectangle other : _rectangles) {
+				bounds.add(other);
+			}
+			_rectangles.clear();
+			_rectangles.add(bounds);
+		}
+	}
+
+	/**
+	 * Marks all cells as changed.
+	 */
+	public synchronized void addAll() {
+		_all = true;
+		_rectangles.clear();
+	}
+
+	public synchronized boolean isEmpty() {
+		return !_all && _rectangles.isEmpty();
+	}
+
+	/**
+	 * @param width
+	 *            Number of columns of the labyrinth
+	 * @param height
+	 *            Number of rows of the labyrinth
+	 * @return Bounds of all collected rectangles or null if there are none
+	 */
+	public synchronized Rectangle getBounds(int width, int height) {
+		if (_all) {
+			return new Rectangle(0, 0, width, height);
+		}
+		Rectangle bounds = null;
+		for (Rectangle rectangle : _rectangles) {
+			if (bounds == null) {
+				bounds = new Rectangle(rectangle);
+			} else {
+				bounds.add(rectangle);
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Removes the collected rectangles.
+	 * 
+	 * @param width
+	 *            Number of columns of the labyrinth
+	 * @param height
+	 *            Number of rows of the labyrinth
+	 * @return The changed rectangles of cells. If all cells changed it
+	 *         contains a single rectangle covering the whole labyrinth.
+	 */
+	public synchronized List<Rectangle> take(int width, int height) {
+		List<Rectangle> rectangles = new ArrayList<>(_rectangles);
+		if (_all) {
+			rectangles.clear();
+			rectangles.add(new Rectangle(0, 0, width, height));
+		}
+		_rectangles.clear();
+		_all = false;
+		return rectangles;
+	}
+}
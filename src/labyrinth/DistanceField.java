@@ -0,0 +1,318 @@
+package labyrinth;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Distance of every tile to its nearest exit, computed with a breadth first
+ * search starting from all exits at once. Once computed, the shortest path
+ * from any tile is found by walking downhill to the exit without searching.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class DistanceField {
+
+	/**
+	 * Distance of walls and of tiles from which no exit can be reached.
+	 */
+	public static final int UNREACHABLE = -1;
+
+	private final IntQueue _queue = new IntQueue();
+	private final IntQueue _affected = new IntQueue();
+	private final IntHeap _heap = new IntHeap();
+	private final VisitedSet _affectedSet = new VisitedSet();
+	private final int[] _neighbors = new int[4];
+	private final int[] _affectedNeighbors = new int[4];
+	private Grid _grid;
+	private int _modCount;
+	private int[] _distance = new int[0];
+
+	/**
+	 * Checks if the distances were computed for the current state of the
+	 * grid.
+	 * 
+	 * @param grid
+	 * @return
+	 */
+	public boolean isValid(Grid grid) {
+		return grid == _grid && grid.getModCount() == _modCount;
+	}
+
+	/**
+	 * Computes the distances of all tiles of the grid.
+	 * 
+	 * @param grid
+	 * @return Number of tiles which were reached
+	 */
+	public long compute(Grid grid) {
+		_grid = grid;
+		_modCount = grid.getModCount();
+		if (_distance.length != grid.size()) {
+			_distance = new int[grid.size()];
+		}
+		Arrays.fill(_distance, UNREACHABLE);
+
+		_queue.clear();
+		if (grid.size() == 0) {
+			return 0;
+		}
+		int width = grid.getWidth();
+		int height = grid.getHeight();
+		for (int x = 0; x < width; x++) {
+			addExit(grid.index(x, 0));
+			addExit(grid.index(x, height - 1));
+		}
+		for (int y = 1; y < height - 1; y++) {
+			addExit(grid.index(0, y));
+			addExit(grid.index(width - 1, y));
+		}
+
+		long reached = 0;
+		try {
+			while (!_queue.isEmpty()) {
+				int tile = _queue.remove();
+				if (++reached % BackgroundJob.PROGRESS_INTERVAL == 0) {
+					BackgroundJob.reportProgress(reached);
+				}
+
+				int distance = _distance[tile] + 1;
+				int count = grid.getNeighbors(tile, false, _neighbors);
+				for (int i = 0; i < count; i++) {
+					int neighbor = _neighbors[i];
+					if (_distance[neighbor] == UNREACHABLE) {
+						_distance[neighbor] = distance;
+						_queue.add(neighbor);
+					}
+				}
+			}
+		} catch (CancellationException e) {
+			// the distances are incomplete
+			_grid = null;
+			throw e;
+		}
+
+		return reached;
+	}
+
+	/**
+	 * Repairs the distances after a single tile was toggled. Opening a tile
+	 * relaxes the distances outward from it. Closing a tile only recomputes
+	 * the tiles whose shortest paths all led through it.
+	 * 
+	 * @param grid
+	 * @param tile
+	 *            The toggled tile
+	 * @return False if the distances were not up to date before the toggle
+	 *         and have to be computed again
+	 */
+	public boolean update(Grid grid, int tile) {
+		if (grid != _grid || grid.getModCount() != _modCount + 1) {
+			return false;
+		}
+		_modCount = grid.getModCount();
+
+		if (grid.isWall(tile)) {
+			close(tile);
+		} else {
+			open(tile);
+		}
+		return true;
+	}
+
+	/**
+	 * @param tile
+	 * @return Number of steps to the nearest exit or {@link #UNREACHABLE}
+	 */
+	public int getDistance(int tile) {
+		return _distance[tile];
+	}
+
+	/**
+	 * Walks downhill from a tile to the nearest exit.
+	 * 
+	 * @param start
+	 *            Index of the starter tile
+	 * @return Indexes of the tiles on the path, starting with the starter tile
+	 *         and ending with the exit, or null if no exit can be reached
+	 */
+	public int[] pathFrom(int start) {
+		if (_distance[start] == UNREACHABLE) {
+			return null;
+		}
+
+		int[] path = new int[_distance[start] + 1];
+		int tile = start;
+		path[0] = tile;
+		for (int step = 1; step < path.length; step++) {
+			int count = _grid.getNeighbors(tile, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				if (_distance[_neighbors[i]] == _distance[tile] - 1) {
+					tile = _neighbors[i];
+					break;
+				}
+			}
+			path[step] = tile;
+		}
+		return path;
+	}
+
+	/**
+	 * Updates the distances after a wall was removed. Distances can only get
+	 * shorter, so they are lowered in breadth first order starting at the
+	 * opened tile.
+	 * 
+	 * @param tile
+	 */
+	private void open(int tile) {
+		int distance = _grid.isBorder(tile) ? 0 : UNREACHABLE;
+		int count = _grid.getNeighbors(tile, false, _neighbors);
+		for (int i = 0; i < count; i++) {
+			int neighbor = _distance[_neighbors[i]];
+			if (neighbor != UNREACHABLE
+					&& (distance == UNREACHABLE || neighbor + 1 < distance)) {
+				distance = neighbor + 1;
+			}
+		}
+
+		_distance[tile] = distance;
+		if (distance == UNREACHABLE) {
+			return;
+		}
+
+		_queue.clear();
+		_queue.add(tile);
+		while (!_queue.isEmpty()) {
+			int current = _queue.remove();
+			distance = _distance[current] + 1;
+
+			count = _grid.getNeighbors(current, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _neighbors[i];
+				if (_distance[neighbor] == UNREACHABLE
+						|| _distance[neighbor] > distance) {
+					_distance[neighbor] = distance;
+					_queue.add(neighbor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the distances after a wall was added. First the tiles which lost
+	 * all of their shortest paths are collected, layer by layer starting at
+	 * the closed tile. Then their distances are recomputed from the
+	 * surrounding tiles which kept their distance.
+	 * 
+	 * @param tile
+	 */
+	private void close(int tile) {
+		int distance = _distance[tile];
+		_distance[tile] = UNREACHABLE;
+		if (distance == UNREACHABLE) {
+			return;
+		}
+
+		_affectedSet.reset(_distance.length);
+		_affected.clear();
+		_queue.clear();
+		addAffectedNeighbors(tile, distance);
+		while (!_queue.isEmpty()) {
+			int current = _queue.remove();
+			addAffectedNeighbors(current, _distance[current]);
+		}
+
+		_heap.clear();
+		while (!_affected.isEmpty()) {
+			int current = _affected.remove();
+			int best = UNREACHABLE;
+			int count = _grid.getNeighbors(current, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _neighbors[i];
+				int neighborDistance = _distance[neighbor];
+				if (!_affectedSet.contains(neighbor)
+						&& neighborDistance != UNREACHABLE
+						&& (best == UNREACHABLE || neighborDistance + 1 < best)) {
+					best = neighborDistance + 1;
+				}
+			}
+			_distance[current] = best;
+			if (best != UNREACHABLE) {
+				_heap.add(current, best);
+			}
+		}
+
+		while (!_heap.isEmpty()) {
+			int priority = _heap.minPriority();
+			int current = _heap.removeMin();
+			if (priority != _distance[current]) {
+				continue;
+			}
+
+			int count = _grid.getNeighbors(current, false, _neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = _neighbors[i];
+				if (!_affectedSet.contains(neighbor)) {
+					continue;
+				}
+				if (_distance[neighbor] == UNREACHABLE
+						|| _distance[neighbor] > priority + 1) {
+					_distance[neighbor] = priority + 1;
+					_heap.add(neighbor, priority + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the neighbors one step further away from the exit than the
+	 * given tile which have no other neighbor to lead them to the exit.
+	 * 
+	 * @param tile
+	 * @param distance
+	 *            Distance the tile had before the change
+	 */
+	private void addAffectedNeighbors(int tile, int distance) {
+		int count = _grid.getNeighbors(tile, false, _affectedNeighbors);
+		for (int i = 0; i < count; i++) {
+			int neighbor = _affectedNeighbors[i];
+			if (_distance[neighbor] == distance + 1
+					&& !_affectedSet.contains(neighbor)
+					&& !hasShortestPath(neighbor)) {
+				_affectedSet.add(neighbor);
+				_affected.add(neighbor);
+				_queue.add(neighbor);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a tile still has a neighbor one step closer to the exit which
+	 * is not affected by the change.
+	 * 
+	 * @param tile
+	 * @return
+	 */
+	private boolean hasShortestPath(int tile) {
+		int distance = _distance[tile];
+		if (distance == 0) {
+			return true;
+		}
+		int count = _grid.getNeighbors(tile, false, _neighbors);
+		for (int i = 0; i < count; i++) {
+			int neighbor = _neighbors[i];
+			if (_distance[neighbor] == distance - 1
+					&& !_affectedSet.contains(neighbor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void addExit(int tile) {
+		if (!_grid.isWall(tile) && _distance[tile] == UNREACHABLE) {
+			_distance[tile] = 0;
+			_queue.add(tile);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package labyrinth;
+
+/**
+ * Answers path searches from a precomputed {@link DistanceField}. The field is
+ * computed once per labyrinth and repaired locally when single tiles are
+ * toggled, every search after that only costs the length of the path.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class DistanceFieldSolver extends AbstractSolver {
+
+	private final DistanceField _field = new DistanceField();
+
+	@Override
+	public ESolverType getType() {
+		return ESolverType.DistanceField;
+	}
+
+	@Override
+	public void tileToggled(Grid grid, int tile) {
+		// when the repair is not possible the next search computes it again
+		_field.update(grid, tile);
+	}
+
+	@Override
+	protected int[] search(Grid grid, int start) {
+		if (!_field.isValid(grid)) {
+			_nodesExpanded += _field.compute(grid);
+		}
+
+		int[] path = _field.pathFrom(start);
+		if (path != null) {
+			_nodesExpanded += path.length;
+		}
+		return path;
+	}
+}
@@ -0,0 +1,168 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Eller's algorithm. The labyrinth is built row by row and only the state of
+ * the current row is kept: which set every cell belongs to. Neighbors in
+ * different sets are joined at random, then every set continues downward at
+ * least once. The last row joins all remaining sets.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class EllerGenerator extends LatticeGenerator {
+
+	@Override
+	public EGeneratorType getType() {
+		return EGeneratorType.Eller;
+	}
+
+	@Override
+	protected void generate(Random random) {
+		Row row = new Row(_columns);
+
+		for (int y = 0; y < _rows; y++) {
+			row.next(random, y == _rows - 1);
+
+			for (int column = 0; column < _columns; column++) {
+				int cell = cell(column, y);
+				carveCell(cell);
+				if (row.isOpenRight(column)) {
+					carvePassage(cell, cell + 1);
+				}
+				if (row.isOpenDown(column)) {
+					carvePassage(cell, cell + _columns);
+				}
+			}
+		}
+	}
+
+	/**
+	 * State of one row of Eller's algorithm. Needs memory linear to the width
+	 * of the labyrinth only.
+	 */
+	static class Row {
+		private final int[] _set;
+		private final int[] _parent;
+		private final int[] _lastColumn;
+		private final boolean[] _hasDown;
+		private final boolean[] _right;
+		private final boolean[] _down;
+
+		/**
+		 * @param columns
+		 *            Number of cells in a row
+		 */
+		Row(int columns) {
+			_set = new int[columns];
+			_parent = new int[columns];
+			_lastColumn = new int[columns];
+			_hasDown = new boolean[columns];
+			_right = new boolean[columns];
+			_down = new boolean[columns];
+
+			for (int column = 0; column < columns; column++) {
+				_set[column] = column;
+			}
+		}
+
+		/**
+		 * Decides the passages of the next row.
+		 * 
+		 * @param random
+		 * @param last
+		 *            If this is the last row, which joins all sets
+		 */
+		void next(Random random, boolean last) {
+			int columns = _set.length;
+			for (int set = 0; set < columns; set++) {
+				_parent[set] = set;
+			}
+
+			for (int column = 0; column < columns - 1; column++) {
+				int a = find(_set[column]);
+				int b = find(_set[column + 1]);
+				_right[column] = a != b && (last || random.nextBoolean());
+				if (_right[column]) {
+					_parent[a] = b;
+				}
+			}
+			if (columns > 0) {
+				_right[columns - 1] = false;
+			}
+
+			for (int column = 0; column < columns; column++) {
+				_set[column] = find(_set[column]);
+				_hasDown[column] = false;
+			}
+
+			if (last) {
+				for (int column = 0; column < columns; column++) {
+					_down[column] = false;
+				}
+				return;
+			}
+
+			for (int column = 0; column < columns; column++) {
+				int set = _set[column];
+				_down[column] = random.nextBoolean();
+				_hasDown[set] |= _down[column];
+				_lastColumn[set] = column;
+			}
+			for (int column = 0; column < columns; column++) {
+				int set = _set[column];
+				if (!_hasDown[set] && _lastColumn[set] == column) {
+					_down[column] = true;
+					_hasDown[set] = true;
+				}
+			}
+
+			renumberSets();
+		}
+
+		boolean isOpenRight(int column) {
+			return _right[column];
+		}
+
+		boolean isOpenDown(int column) {
+			return _down[column];
+		}
+
+		/**
+		 * Prepares the sets of the next row: cells below a passage keep their
+		 * set, all other cells get a new one. The sets are numbered from zero
+		 * again, so the numbers stay below the number of columns.
+		 */
+		private void renumberSets() {
+			int columns = _set.length;
+			for (int set = 0; set < columns; set++) {
+				_parent[set] = -1;
+			}
+
+			int next = 0;
+			for (int column = 0; column < columns; column++) {
+				if (_down[column]) {
+					int set = _set[column];
+					if (_parent[set] < 0) {
+						_parent[set] = next++;
+					}
+					_set[column] = _parent[set];
+				}
+			}
+			for (int column = 0; column < columns; column++) {
+				if (!_down[column]) {
+					_set[column] = next++;
+				}
+			}
+		}
+
+		private int find(int set) {
+			while (_parent[set] != set) {
+				_parent[set] = _parent[_parent[set]];
+				set = _parent[set];
+			}
+			return set;
+		}
+	}
+}
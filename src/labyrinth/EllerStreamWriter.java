@@ -0,0 +1,115 @@
+package labyrinth;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates a labyrinth with Eller's algorithm and writes it row by row in
+ * the text format read by {@link LabyrinthModel}. Only one row of state is
+ * kept, so the memory needed depends on the width of the labyrinth but not
+ * on its height, and labyrinths much larger than the heap can be produced.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class EllerStreamWriter {
+
+	private static final byte WALL = '#';
+	private static final byte EMPTY = '.';
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final int _width;
+	private final int _height;
+	private final int _columns;
+	private final int _rows;
+	private final Random _random;
+	private final byte[] _lineSeparator = String.format("%n").getBytes();
+
+	/**
+	 * @param width
+	 *            Width in tiles, at least 3
+	 * @param height
+	 *            Height in tiles, at least 3
+	 * @param random
+	 *            Source of all random decisions
+	 */
+	public EllerStreamWriter(int width, int height, Random random) {
+		if (width < 3 || height < 3) {
+			throw new IllegalArgumentException(String.format(
+					"Invalid labyrinth size %dx%d", width, height));
+		}
+		_width = width;
+		_height = height;
+		_columns = (width - 1) / 2;
+		_rows = (height - 1) / 2;
+		_random = random;
+	}
+
+	/**
+	 * Writes the labyrinth to a file.
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(
+				file), BUFFER_SIZE)) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Writes the labyrinth to a stream. The stream is not closed.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(OutputStream out) throws IOException {
+		EllerGenerator.Row row = new EllerGenerator.Row(_columns);
+		byte[] line = new byte[_width];
+
+		// top border with the exit above a random cell
+		Arrays.fill(line, WALL);
+		line[2 * _random.nextInt(_columns) + 1] = EMPTY;
+		writeLine(out, line);
+
+		for (int y = 0; y < _rows; y++) {
+			row.next(_random, y == _rows - 1);
+
+			Arrays.fill(line, WALL);
+			for (int column = 0; column < _columns; column++) {
+				line[2 * column + 1] = EMPTY;
+				if (row.isOpenRight(column)) {
+					line[2 * column + 2] = EMPTY;
+				}
+			}
+			writeLine(out, line);
+
+			if (y < _rows - 1) {
+				Arrays.fill(line, WALL);
+				for (int column = 0; column < _columns; column++) {
+					if (row.isOpenDown(column)) {
+						line[2 * column + 1] = EMPTY;
+					}
+				}
+				writeLine(out, line);
+			}
+		}
+
+		// bottom border, two rows thick if the height is even
+		Arrays.fill(line, WALL);
+		for (int y = 2 * _rows; y < _height; y++) {
+			writeLine(out, line);
+		}
+	}
+
+	private void writeLine(OutputStream out, byte[] line) throws IOException {
+		out.write(line);
+		out.write(_lineSeparator);
+	}
+}
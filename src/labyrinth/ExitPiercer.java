@@ -0,0 +1,201 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Opens the exits of a carved labyrinth. Only the border tiles are looked at:
+ * a border tile can become an exit if the tile right inside of it is empty.
+ * The corners never qualify as they have no inner neighbor.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class ExitPiercer {
+
+	/**
+	 * Where the exits are placed.
+	 */
+	public enum EExitPlacement {
+		Anywhere("Anywhere"), OppositeSides("Opposite sides");
+
+		private final String _label;
+
+		private EExitPlacement(String label) {
+			_label = label;
+		}
+
+		@Override
+		public String toString() {
+			return _label;
+		}
+	}
+
+	private static final int TOP = 0;
+	private static final int RIGHT = 1;
+	private static final int BOTTOM = 2;
+	private static final int LEFT = 3;
+
+	private final int _count;
+	private final EExitPlacement _placement;
+
+	/**
+	 * Creates a piercer for a single exit anywhere on the border.
+	 */
+	public ExitPiercer() {
+		this(1, EExitPlacement.Anywhere);
+	}
+
+	/**
+	 * @param count
+	 *            Number of exits, at least one
+	 * @param placement
+	 *            Where the exits are placed
+	 */
+	public ExitPiercer(int count, EExitPlacement placement) {
+		if (count < 1) {
+			throw new IllegalArgumentException("Invalid number of exits "
+					+ count);
+		}
+		_count = count;
+		_placement = placement;
+	}
+
+	public int getCount() {
+		return _count;
+	}
+
+	public EExitPlacement getPlacement() {
+		return _placement;
+	}
+
+	/**
+	 * Opens the exits. If there are not enough candidates on the border, less
+	 * exits are opened.
+	 * 
+	 * @param grid
+	 *            The carved labyrinth
+	 * @param random
+	 * @return Indexes of the opened exits
+	 */
+	public int[] pierce(Grid grid, Random random) {
+		int[][] candidates = new int[4][];
+		int[] remaining = new int[4];
+		collectCandidates(grid, candidates, remaining);
+
+		int[] exits = new int[_count];
+		int count = 0;
+		int firstSide = random.nextInt(4);
+		for (int i = 0; i < _count; i++) {
+			int side = _placement == EExitPlacement.OppositeSides ? pickSide(
+					firstSide, i, remaining) : pickAnySide(random, remaining);
+			if (side < 0) {
+				break;
+			}
+
+			// remove a random candidate by swapping the last one into its place
+			int j = random.nextInt(remaining[side]);
+			int tile = candidates[side][j];
+			candidates[side][j] = candidates[side][--remaining[side]];
+
+			grid.setWall(tile, false);
+			exits[count++] = tile;
+		}
+
+		if (count < exits.length) {
+			int[] pierced = new int[count];
+			System.arraycopy(exits, 0, pierced, 0, count);
+			return pierced;
+		}
+		return exits;
+	}
+
+	/**
+	 * Collects the border tiles of every side with an empty inner neighbor.
+	 * 
+	 * @param grid
+	 * @param candidates
+	 *            Receives the candidates per side
+	 * @param remaining
+	 *            Receives the number of candidates per side
+	 */
+	private void collectCandidates(Grid grid, int[][] candidates,
+			int[] remaining) {
+		int width = grid.getWidth();
+		int height = grid.getHeight();
+		for (int side = 0; side < 4; side++) {
+			candidates[side] = new int[side % 2 == 0 ? Math.max(width - 2, 0)
+					: Math.max(height - 2, 0)];
+		}
+		if (width < 3 || height < 3) {
+			return;
+		}
+
+		for (int x = 1; x < width - 1; x++) {
+			int top = x;
+			int bottom = (height - 1) * width + x;
+			if (!grid.isWall(top + width)) {
+				candidates[TOP][remaining[TOP]++] = top;
+			}
+			if (!grid.isWall(bottom - width)) {
+				candidates[BOTTOM][remaining[BOTTOM]++] = bottom;
+			}
+		}
+		for (int y = 1; y < height - 1; y++) {
+			int left = y * width;
+			int right = left + width - 1;
+			if (!grid.isWall(left + 1)) {
+				candidates[LEFT][remaining[LEFT]++] = left;
+			}
+			if (!grid.isWall(right - 1)) {
+				candidates[RIGHT][remaining[RIGHT]++] = right;
+			}
+		}
+	}
+
+	/**
+	 * Picks a side weighted by its number of candidates, so every candidate is
+	 * equally likely.
+	 * 
+	 * @param random
+	 * @param remaining
+	 * @return The side or -1 if there are no candidates left
+	 */
+	private int pickAnySide(Random random, int[] remaining) {
+		int total = 0;
+		for (int side = 0; side < 4; side++) {
+			total += remaining[side];
+		}
+		if (total == 0) {
+			return -1;
+		}
+
+		int r = random.nextInt(total);
+		int side = 0;
+		while (r >= remaining[side]) {
+			r -= remaining[side++];
+		}
+		return side;
+	}
+
+	/**
+	 * Picks the side of the i-th exit. The sides alternate between the first
+	 * side and its opposite, after every pair the axis is switched. Sides
+	 * without candidates are skipped.
+	 * 
+	 * @param firstSide
+	 * @param i
+	 *            Number of the exit
+	 * @param remaining
+	 * @return The side or -1 if there are no candidates left
+	 */
+	private int pickSide(int firstSide, int i, int[] remaining) {
+		int side = firstSide + (i % 2) * 2 + (i / 2) % 2;
+		for (int tries = 0; tries < 4; tries++) {
+			int candidate = (side + tries) % 4;
+			if (remaining[candidate] > 0) {
+				return candidate;
+			}
+		}
+		return -1;
+	}
+}
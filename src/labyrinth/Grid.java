@@ -0,0 +1,303 @@
+package labyrinth;
+
+/**
+ * Storage of the labyrinth cells. Every cell has a position in a flat index
+ * space <code>y * width + x</code> and stores if it is a wall, if it is the
+ * starter tile and if it lies on the found path.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public abstract class Grid {
+
+	/**
+	 * Labyrinths with more cells than this are stored bit-packed by default.
+	 */
+	public static final int COMPACT_THRESHOLD = 1 << 20;
+
+	private static final int[] DX = { -1, 0, 1, 0 };
+	private static final int[] DY = { 0, -1, 0, 1 };
+
+	protected final int _width;
+	protected final int _height;
+	protected int _modCount;
+
+	protected Grid(int width, int height) {
+		checkSize(width, height);
+		_width = width;
+		_height = height;
+	}
+
+	/**
+	 * Checks if a grid of a size can be created at all.
+	 * 
+	 * @param width
+	 *            Width in tiles
+	 * @param height
+	 *            Height in tiles
+	 * @throws IllegalArgumentException
+	 *             If the size is negative or has too many tiles
+	 */
+	static void checkSize(int width, int height) {
+		if (width < 0 || height < 0) {
+			throw new IllegalArgumentException(String.format(
+					"Invalid labyrinth size %dx%d", width, height));
+		}
+		if ((long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format(
+					"Labyrinth %dx%d has too many tiles", width, height));
+		}
+	}
+
+	/**
+	 * Creates a grid completely filled with walls.
+	 * 
+	 * @param width
+	 *            Width in tiles
+	 * @param height
+	 *            Height in tiles
+	 * @param compact
+	 *            If the cells should be stored bit-packed instead of as tile
+	 *            objects
+	 * @return
+	 */
+	public static Grid create(int width, int height, boolean compact) {
+		if (compact || (long) width * height > COMPACT_THRESHOLD) {
+			return new BitGrid(width, height);
+		}
+		return new TileGrid(width, height);
+	}
+
+	public int getWidth() {
+		return _width;
+	}
+
+	public int getHeight() {
+		return _height;
+	}
+
+	/**
+	 * @return Number of cells in this grid
+	 */
+	public int size() {
+		return _width * _height;
+	}
+
+	/**
+	 * Calculates the position of a coordinate in the flat index space.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public int index(int x, int y) {
+		return y * _width + x;
+	}
+
+	public int getX(int index) {
+		return index % _width;
+	}
+
+	public int getY(int index) {
+		return index / _width;
+	}
+
+	/**
+	 * Checks if the coordinate lies inside the grid.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean contains(int x, int y) {
+		return x >= 0 && y >= 0 && x < _width && y < _height;
+	}
+
+	/**
+	 * Determines if the cell lies on the border of the labyrinth.
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public boolean isBorder(int index) {
+		int x = getX(index);
+		int y = getY(index);
+		return x == 0 || x == _width - 1 || y == 0 || y == _height - 1;
+	}
+
+	/**
+	 * Determines if the cell is an exit, which is an empty border cell.
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public boolean isExit(int index) {
+		return !isWall(index) && isBorder(index);
+	}
+
+	/**
+	 * Checks if there is a wall at the given coordinate. Coordinates outside of
+	 * the grid are never walls.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public boolean isWall(int x, int y) {
+		return contains(x, y) && isWall(index(x, y));
+	}
+
+	/**
+	 * @return Number of changes of the walls so far, to detect outdated data
+	 *         derived from the walls.
+	 */
+	public int getModCount() {
+		return _modCount;
+	}
+
+	/**
+	 * Counts a change of the walls which was made without counting, see
+	 * {@link BitGrid#carveUncounted(int)}.
+	 */
+	void wallsChanged() {
+		_modCount++;
+	}
+
+	public abstract boolean isWall(int index);
+
+	public abstract void setWall(int index, boolean wall);
+
+	public abstract boolean isStart(int index);
+
+	public abstract void setStart(int index, boolean start);
+
+	public abstract boolean isPath(int index);
+
+	public abstract void setPath(int index, boolean path);
+
+	/**
+	 * Resets the start and path flags of all cells.
+	 */
+	public abstract void clearMarks();
+
+	/**
+	 * Creates an independent copy of the walls and marks, which stays the
+	 * same while this grid is changed further.
+	 * 
+	 * @return A bit-packed copy unless the grid type knows better
+	 */
+	public Grid copy() {
+		Grid copy = new BitGrid(_width, _height);
+		long[] words = new long[(_width + 63) >>> 6];
+		for (int y = 0; y < _height; y++) {
+			copyRow(y, words);
+			copy.setRow(y, words);
+		}
+		for (int i = 0; i < size(); i++) {
+			copy.setStart(i, isStart(i));
+			copy.setPath(i, isPath(i));
+		}
+		return copy;
+	}
+
+	/**
+	 * Collects the horizontal and vertical neighbors of a cell which are
+	 * either walls or empty.
+	 * 
+	 * @param index
+	 *            The cell
+	 * @param wall
+	 *            True to collect the wall neighbors, false for the empty ones
+	 * @param neighbors
+	 *            Receives the indexes of the neighbors, needs room for four
+	 * @return Number of neighbors found
+	 */
+	public int getNeighbors(int index, boolean wall, int[] neighbors) {
+		int x = getX(index);
+		int y = getY(index);
+		int count = 0;
+
+		for (int i = 0; i < DX.length; i++) {
+			int nx = x + DX[i];
+			int ny = y + DY[i];
+			if (!contains(nx, ny)) {
+				continue;
+			}
+			int neighbor = index(nx, ny);
+			if (isWall(neighbor) == wall) {
+				neighbors[count++] = neighbor;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Copies the wall flags of a row into a bit set, bit <code>x % 64</code>
+	 * of word <code>x / 64</code> being set if there is a wall at column x.
+	 * 
+	 * @param y
+	 *            The row
+	 * @param words
+	 *            Receives the bits, needs room for
+	 *            <code>(width + 63) / 64</code> words
+	 */
+	public void copyRow(int y, long[] words) {
+		int count = (_width + 63) >>> 6;
+		for (int i = 0; i < count; i++) {
+			words[i] = 0L;
+		}
+		int offset = index(0, y);
+		for (int x = 0; x < _width; x++) {
+			if (isWall(offset + x)) {
+				words[x >>> 6] |= 1L << x;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the wall flags of a row, the counterpart of
+	 * {@link #copyRow(int, long[])}.
+	 * 
+	 * @param y
+	 *            The row
+	 * @param words
+	 *            Bit <code>x % 64</code> of word <code>x / 64</code> is set
+	 *            if there is a wall at column x
+	 */
+	public void setRow(int y, long[] words) {
+		int offset = index(0, y);
+		for (int x = 0; x < _width; x++) {
+			setWall(offset + x, (words[x >>> 6] & (1L << x)) != 0);
+		}
+	}
+
+	/**
+	 * Counts the walls in a row.
+	 * 
+	 * @param y
+	 * @return
+	 */
+	public int countWalls(int y) {
+		long[] words = new long[(_width + 63) >>> 6];
+		copyRow(y, words);
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Counts all walls in the labyrinth.
+	 * 
+	 * @return
+	 */
+	public long countWalls() {
+		long count = 0;
+		for (int y = 0; y < _height; y++) {
+			count += countWalls(y);
+		}
+		return count;
+	}
+}
@@ -0,0 +1,88 @@
+package labyrinth;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of primitive ints ordered by an int priority.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class IntHeap {
+
+	private int[] _values = new int[64];
+	private int[] _priorities = new int[64];
+	private int _size;
+
+	public void add(int value, int priority) {
+		if (_size == _values.length) {
+			_values = Arrays.copyOf(_values, _size << 1);
+			_priorities = Arrays.copyOf(_priorities, _size << 1);
+		}
+
+		int i = _size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (_priorities[parent] <= priority) {
+				break;
+			}
+			_values[i] = _values[parent];
+			_priorities[i] = _priorities[parent];
+			i = parent;
+		}
+		_values[i] = value;
+		_priorities[i] = priority;
+	}
+
+	/**
+	 * @return Priority of the smallest element
+	 */
+	public int minPriority() {
+		if (_size == 0) {
+			throw new IllegalStateException("Heap is empty");
+		}
+		return _priorities[0];
+	}
+
+	/**
+	 * Removes the element with the smallest priority.
+	 * 
+	 * @return The value of the element
+	 */
+	public int removeMin() {
+		if (_size == 0) {
+			throw new IllegalStateException("Heap is empty");
+		}
+		int min = _values[0];
+		int value = _values[--_size];
+		int priority = _priorities[_size];
+
+		int i = 0;
+		int half = _size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < _size
+					&& _priorities[child + 1] < _priorities[child]) {
+				child++;
+			}
+			if (priority <= _priorities[child]) {
+				break;
+			}
+			_values[i] = _values[child];
+			_priorities[i] = _priorities[child];
+			i = child;
+		}
+		_values[i] = value;
+		_priorities[i] = priority;
+
+		return min;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	public void clear() {
+		_size = 0;
+	}
+}
@@ -0,0 +1,68 @@
+package labyrinth;
+
+/**
+ * First in first out queue of primitive ints stored in a ring buffer which
+ * grows when it is full.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class IntQueue {
+
+	private int[] _elements;
+	private int _head;
+	private int _size;
+
+	public IntQueue() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity
+	 *            Initial capacity, rounded up to a power of two
+	 */
+	public IntQueue(int capacity) {
+		int length = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		_elements = new int[length];
+	}
+
+	public void add(int element) {
+		if (_size == _elements.length) {
+			grow();
+		}
+		_elements[(_head + _size) & (_elements.length - 1)] = element;
+		_size++;
+	}
+
+	public int remove() {
+		if (_size == 0) {
+			throw new IllegalStateException("Queue is empty");
+		}
+		int element = _elements[_head];
+		_head = (_head + 1) & (_elements.length - 1);
+		_size--;
+		return element;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public void clear() {
+		_head = 0;
+		_size = 0;
+	}
+
+	private void grow() {
+		int[] elements = new int[_elements.length << 1];
+		int tail = _elements.length - _head;
+		System.arraycopy(_elements, _head, elements, 0, tail);
+		System.arraycopy(_elements, 0, elements, tail, _head);
+		_elements = elements;
+		_head = 0;
+	}
+}
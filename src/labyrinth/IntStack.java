@@ -0,0 +1,48 @@
+package labyrinth;
+
+import java.util.Arrays;
+
+/**
+ * Last in first out stack of primitive ints which grows when it is full.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class IntStack {
+
+	private int[] _elements = new int[64];
+	private int _size;
+
+	public void push(int element) {
+		if (_size == _elements.length) {
+			_elements = Arrays.copyOf(_elements, _size << 1);
+		}
+		_elements[_size++] = element;
+	}
+
+	public int pop() {
+		if (_size == 0) {
+			throw new IllegalStateException("Stack is empty");
+		}
+		return _elements[--_size];
+	}
+
+	public int peek() {
+		if (_size == 0) {
+			throw new IllegalStateException("Stack is empty");
+		}
+		return _elements[_size - 1];
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public void clear() {
+		_size = 0;
+	}
+}
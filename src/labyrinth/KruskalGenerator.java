@@ -0,0 +1,82 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Randomized Kruskal algorithm. Every cell starts in its own set, the walls
+ * between cells are visited in random order and carved out if they separate
+ * two different sets. The sets are kept in a union-find over the cell
+ * numbers.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class KruskalGenerator extends LatticeGenerator {
+
+	private int[] _parent;
+
+	@Override
+	public EGeneratorType getType() {
+		return EGeneratorType.Kruskal;
+	}
+
+	@Override
+	protected void generate(Random random) {
+		int cells = _columns * _rows;
+		_parent = new int[cells];
+		for (int cell = 0; cell < cells; cell++) {
+			_parent[cell] = cell;
+			carveCell(cell);
+		}
+
+		// edge 2 * cell leads to the right, 2 * cell + 1 down
+		int[] edges = new int[2 * cells];
+		int count = 0;
+		for (int row = 0; row < _rows; row++) {
+			for (int column = 0; column < _columns; column++) {
+				int cell = cell(column, row);
+				if (column < _columns - 1) {
+					edges[count++] = 2 * cell;
+				}
+				if (row < _rows - 1) {
+					edges[count++] = 2 * cell + 1;
+				}
+			}
+		}
+
+		for (int i = count; i > 1; i--) {
+			int j = random.nextInt(i);
+			int swap = edges[i - 1];
+			edges[i - 1] = edges[j];
+			edges[j] = swap;
+		}
+
+		for (int i = 0; i < count; i++) {
+			int cell = edges[i] >>> 1;
+			int neighbor = (edges[i] & 1) == 0 ? cell + 1 : cell + _columns;
+			int a = find(cell);
+			int b = find(neighbor);
+			if (a != b) {
+				_parent[a] = b;
+				carvePassage(cell, neighbor);
+			}
+		}
+
+		_parent = null;
+	}
+
+	/**
+	 * Finds the representative of the set of a cell and halves the path to it
+	 * on the way.
+	 * 
+	 * @param cell
+	 * @return
+	 */
+	private int find(int cell) {
+		while (_parent[cell] != cell) {
+			_parent[cell] = _parent[_parent[cell]];
+			cell = _parent[cell];
+		}
+		return cell;
+	}
+}
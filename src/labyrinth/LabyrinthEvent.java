@@ -0,0 +1,75 @@
+package labyrinth;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.List;
+
+/**
+ * Tells what changed in a labyrinth model and where.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class LabyrinthEvent extends EventObject {
+
+	private static final long serialVersionUID = 2408373629521409542L;
+
+	/**
+	 * The kinds of changes.
+	 */
+	public enum EChangeType {
+		/**
+		 * Walls were carved out or toggled.
+		 */
+		CellsChanged,
+		/**
+		 * A new labyrinth was generated or loaded, or it was generated
+		 * completely.
+		 */
+		Regenerated,
+		/**
+		 * The starter tile or the path changed.
+		 */
+		PathChanged,
+		/**
+		 * A background job started or ended, see
+		 * {@link LabyrinthModel#getJob()}. The region is empty.
+		 */
+		JobChanged
+	}
+
+	private final EChangeType _type;
+	private final List<Rectangle> _region;
+
+	/**
+	 * @param model
+	 *            The changed model
+	 * @param type
+	 * @param region
+	 *            Rectangles of the cells which look different now, in columns
+	 *            and rows
+	 */
+	public LabyrinthEvent(LabyrinthModel model, EChangeType type,
+			List<Rectangle> region) {
+		super(model);
+		_type = type;
+		_region = Collections.unmodifiableList(region);
+	}
+
+	public LabyrinthModel getModel() {
+		return (LabyrinthModel) getSource();
+	}
+
+	public EChangeType getType() {
+		return _type;
+	}
+
+	/**
+	 * @return Rectangles of the cells which look different now, in columns
+	 *         and rows
+	 */
+	public List<Rectangle> getRegion() {
+		return _region;
+	}
+}
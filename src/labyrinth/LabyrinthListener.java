@@ -0,0 +1,14 @@
+package labyrinth;
+
+import java.util.EventListener;
+
+/**
+ * Gets informed about changes of a labyrinth model. Changes made while
+ * generating arrive on the generating thread, not the event dispatch thread.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public interface LabyrinthListener extends EventListener {
+	void labyrinthChanged(LabyrinthEvent event);
+}
@@ -1,44 +1,86 @@
 package labyrinth;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.awt.Rectangle;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
-import labyrinth.Tile.ETileType;
+import labyrinth.LabyrinthEvent.EChangeType;
 
 /**
  * This class contains the definition of the labyrinth.
+ * <p>
+ * Labyrinths are generated, solved and loaded by {@link BackgroundJob}s, one
+ * at a time. A labyrinth is generated into a private grid. Snapshots of it
+ * are published from time to time and never changed by the carver
+ * afterwards, so readers always see a consistent grid without locking. The
+ * starter tile, the path and toggled walls are only changed once the
+ * labyrinth is complete, on the event dispatch thread.
  * 
  * @author Sebastian Häni <haeni.sebastian@gmail.com>
  * 
  */
 public class LabyrinthModel {
 
-	private ArrayList<Tile> _tiles = new ArrayList<>();
-	private int _width;
-	private int _height;
-	private boolean _generating = false;
-	private boolean _dirty;
-	private ArrayList<ArrayList<Tile>> _paths = new ArrayList<>();
+	private volatile Grid _grid = new TileGrid(0, 0);
+	private boolean _compact = false;
+	private final AtomicBoolean _generating = new AtomicBoolean();
+	private boolean _replaced;
+	private volatile BackgroundJob _job;
+	private MazeSolver _solver = new DistanceFieldSolver();
+	private MazeGenerator _generator = new DepthFirstGenerator();
+	private ExitPiercer _exitPiercer = new ExitPiercer();
+	private int _start = -1;
+	private int[] _path;
+	private volatile Long _seed;
+	private long _chunkCacheBudget = ChunkCache.DEFAULT_BUDGET;
+	private volatile WallMask _wallMask;
+	private volatile WallPyramid _wallPyramid;
+	private final List<LabyrinthListener> _listeners = new CopyOnWriteArrayList<>();
 
 	public LabyrinthModel(String mazeFile) {
+		this(mazeFile, ChunkCache.DEFAULT_BUDGET);
+	}
+
+	/**
+	 * @param mazeFile
+	 *            File to load or null to generate a random labyrinth
+	 * @param chunkCacheBudget
+	 *            Memory budget in bytes for the chunks of a chunked labyrinth
+	 *            file
+	 */
+	public LabyrinthModel(String mazeFile, long chunkCacheBudget) {
+		_chunkCacheBudget = chunkCacheBudget;
 		if (mazeFile == null) {
 			generateLabyrinth(60, 60, false);
 			return;
 		}
-		parse(mazeFile);
+		if (!parse(new File(mazeFile))) {
+			generateLabyrinth(60, 60, false);
+		}
 	}
 
 	public LabyrinthModel() {
 		generateLabyrinth(60, 60, false);
 	}
 
+	/**
+	 * Creates a model with a random labyrinth which is always the same for
+	 * the same seed.
+	 * 
+	 * @param seed
+	 */
+	public LabyrinthModel(long seed) {
+		generateLabyrinth(60, 60, seed, false);
+	}
+
 	/**
 	 * Generates a random labyrinth.
 	 * 
@@ -50,222 +92,651 @@ public class LabyrinthModel {
 	 *            If the generation should be slow to make it animatable
 	 */
 	public void generateLabyrinth(int width, int height, boolean slow) {
-		if (_generating) {
-			return;
+		generateLabyrinth(width, height, MazeRandom.randomSeed(), slow);
+	}
+
+	/**
+	 * Generates a random labyrinth in the background. The same seed, size and
+	 * generator always give the same labyrinth. A running job is cancelled.
+	 * The current labyrinth stays until the first snapshot of the new one is
+	 * published.
+	 * 
+	 * @param width
+	 *            Width of labyrinth in tiles
+	 * @param height
+	 *            Height of labyrinth in tiles
+	 * @param seed
+	 *            Seed of all random decisions
+	 * @param slow
+	 *            If the generation should be slow to make it animatable
+	 * @throws IllegalArgumentException
+	 *             If no grid of the size can be created
+	 */
+	public void generateLabyrinth(int width, int height, long seed,
+			boolean slow) {
+		Grid.checkSize(width, height);
+		CarveJob job = new CarveJob(this, width, height, _compact,
+				_generator, _exitPiercer, seed, slow);
+		synchronized (this) {
+			// the old job must not publish its grid anymore
+			startJob(job);
+			_replaced = false;
+		}
+		// no path is searched until the new labyrinth is complete
+		clearPath();
+		fireJobChanged();
+	}
+
+	/**
+	 * Loads a labyrinth file in the background, see {@link LoadJob}. The
+	 * current labyrinth stays until the file is read. A running job is
+	 * cancelled.
+	 * 
+	 * @param mazeFile
+	 */
+	public void load(File mazeFile) {
+		LoadJob job = new LoadJob(this, mazeFile, _compact, _chunkCacheBudget);
+		synchronized (this) {
+			startJob(job);
 		}
-		_generating = true;
+		fireJobChanged();
+	}
 
-		_width = width;
-		_height = height;
-		_tiles.clear();
+	/**
+	 * Makes a job the running one and cancels the job which ran before. Must
+	 * be called holding the lock of the model.
+	 * 
+	 * @param job
+	 */
+	private void startJob(BackgroundJob job) {
+		BackgroundJob running = _job;
+		if (running != null) {
+			running.cancel();
+		}
+		_job = job;
+		_generating.set(job instanceof CarveJob);
+		job.start();
+	}
 
-		Thread thread = new CarveThread(this, slow);
+	/**
+	 * @return The running job or null if there is none
+	 */
+	public BackgroundJob getJob() {
+		return _job;
+	}
 
-		Thread.UncaughtExceptionHandler h = new Thread.UncaughtExceptionHandler() {
-			public void uncaughtException(Thread th, Throwable ex) {
-				if (ex instanceof StackOverflowError) {
-					JOptionPane.showMessageDialog(null,
-							"Could not generate a labyrinth this big!");
-				}
-			}
-		};
-		thread.setUncaughtExceptionHandler(h);
-		thread.start();
+	/**
+	 * Cancels the running job. A cancelled generation keeps the tiles carved
+	 * so far.
+	 */
+	public void cancelJob() {
+		BackgroundJob job = _job;
+		if (job != null) {
+			job.cancel();
+		}
 	}
 
-	public ArrayList<Tile> getTiles() {
-		return _tiles;
+	/**
+	 * Informs the model that a job does not run anymore, on the event
+	 * dispatch thread.
+	 * 
+	 * @param job
+	 */
+	void jobEnded(BackgroundJob job) {
+		boolean stopped;
+		synchronized (this) {
+			if (job != _job) {
+				return;
+			}
+			_job = null;
+			// failed, the last snapshot becomes the labyrinth
+			stopped = _generating.getAndSet(false);
+		}
+		if (stopped) {
+			updateWallMask();
+			fireRegenerated();
+		}
+		fireJobChanged();
 	}
 
-	public int getWidth() {
-		return _width;
+	public Grid getGrid() {
+		return _grid;
 	}
 
-	public int getHeight() {
-		return _height;
+	/**
+	 * @return The wall masks of the tiles or null if there are none for the
+	 *         current grid, because it is too large or still being set up.
+	 *         The grid of the masks may be outdated while a new labyrinth is
+	 *         generated.
+	 */
+	public WallMask getWallMask() {
+		return _wallMask;
 	}
 
 	/**
-	 * Searches the path to the nearest exit and sets the visited tiles to the
-	 * path state.
+	 * Creates the levels of detail of the current grid when they are needed
+	 * the first time.
 	 * 
-	 * @param start
-	 * @return
+	 * @return The levels of detail or null if the grid is too large or
+	 *         chunked, as it would be read completely, or still generated.
 	 */
-	public boolean findPathFrom(Tile start) {
-		_paths.clear();
+	public WallPyramid getWallPyramid() {
+		Grid grid = _grid;
+		WallPyramid pyramid = _wallPyramid;
+		if (pyramid != null && pyramid.getGrid() == grid) {
+			return pyramid;
+		}
+		if (grid.size() > WallPyramid.MAX_TILES || grid instanceof ChunkedGrid
+				|| isGenerating()) {
+			// snapshots of a labyrinth being generated are replaced soon
+			return null;
+		}
+		pyramid = new WallPyramid(grid);
+		_wallPyramid = pyramid;
+		return pyramid;
+	}
 
-		if (start.isExit(getWidth(), getHeight())) {
-			return true;
+	/**
+	 * Computes the wall masks and the levels of detail if there are any of
+	 * the current grid from scratch. Huge and chunked grids get no masks, as
+	 * they would be read completely.
+	 */
+	void updateWallMask() {
+		WallPyramid pyramid = _wallPyramid;
+		if (pyramid != null && pyramid.getGrid() == _grid) {
+			pyramid.compute();
 		}
 
-		ArrayList<Tile> visited = new ArrayList<>();
-		visited.add(start);
+		Grid grid = _grid;
+		WallMask mask = _wallMask;
+		if (mask != null && mask.getGrid() == grid) {
+			mask.compute();
+		} else {
+			_wallMask = createWallMask(grid);
+		}
+	}
 
-		try {
-			findPathFrom(start, visited);
-		} catch (StackOverflowError ex) {
-			System.out.println("Labyrinth to big to solve recursively!");
-			return false;
+	/**
+	 * @param grid
+	 * @return The wall masks of the grid or null if it is too large or
+	 *         chunked
+	 */
+	static WallMask createWallMask(Grid grid) {
+		if (grid.size() > WallMask.MAX_TILES || grid instanceof ChunkedGrid) {
+			return null;
 		}
+		return new WallMask(grid);
+	}
 
-		if (_paths.size() > 0) {
-			// finding shortest path
-			ArrayList<Tile> shortest = null;
+	/**
+	 * Publishes a snapshot of the labyrinth being carved.
+	 * 
+	 * @param job
+	 *            The carver, ignored if it was replaced by another job
+	 * @param snapshot
+	 *            Copy of the grid of the carver, which does not change it
+	 *            afterwards
+	 * @param region
+	 *            Rectangles of the cells carved since the last snapshot
+	 */
+	void publish(CarveJob job, Grid snapshot, List<Rectangle> region) {
+		boolean first;
+		synchronized (this) {
+			if (job != _job) {
+				return;
+			}
+			first = !_replaced;
+			if (first) {
+				replace(job, snapshot);
+			} else {
+				_grid = snapshot;
+			}
+		}
+		if (first) {
+			fireRegenerated();
+		} else {
+			fireChanged(EChangeType.CellsChanged, region);
+		}
+	}
 
-			for (ArrayList<Tile> path : _paths) {
+	/**
+	 * Replaces the current labyrinth with the one being carved. Must be called
+	 * holding the lock of the model.
+	 * 
+	 * @param job
+	 *            The carver
+	 * @param grid
+	 *            The first grid of the carver the model gets
+	 */
+	private void replace(CarveJob job, Grid grid) {
+		final Grid old = _grid;
+		_grid = grid;
+		_wallMask = null;
+		_wallPyramid = null;
+		_seed = job.getSeed();
+		_replaced = true;
+		// the old grid may still be painted
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				close(old);
+			}
+		});
+	}
 
-				if (shortest == null) {
-					shortest = path;
-					continue;
-				}
+	/**
+	 * Informs the model that the carver is done or was cancelled.
+	 * 
+	 * @param job
+	 *            The carver, ignored if it was replaced by another job
+	 * @param grid
+	 *            The carved grid, handed over to the model
+	 */
+	void carvingFinished(CarveJob job, Grid grid) {
+		WallMask mask = createWallMask(grid);
+		synchronized (this) {
+			if (job != _job) {
+				return;
+			}
+			if (!_replaced) {
+				replace(job, grid);
+			}
+			_grid = grid;
+			_wallMask = mask;
+			_wallPyramid = null;
+			_generating.set(false);
+		}
+		fireRegenerated();
+	}
 
-				if (shortest.size() > path.size()) {
-					shortest = path;
-				}
+	/**
+	 * Shows a labyrinth read by a job, on the event dispatch thread.
+	 * 
+	 * @param job
+	 *            The reader, its labyrinth is dropped if it was replaced by
+	 *            another job
+	 */
+	void loaded(LoadJob job) {
+		if (job != _job) {
+			close(job.getGrid());
+			return;
+		}
+		close();
+		_grid = job.getGrid();
+		_seed = job.getSeed();
+		_wallMask = job.getWallMask();
+		_wallPyramid = null;
+		_start = -1;
+		_path = null;
+		fireRegenerated();
+	}
 
-			}
+	/**
+	 * Updates the levels of detail and records that the walls of a tile
+	 * changed, which changes how its neighbors are painted too.
+	 * 
+	 * @param tile
+	 */
+	private void wallChanged(int tile) {
+		WallPyramid pyramid = _wallPyramid;
+		if (pyramid != null && pyramid.getGrid() == _grid) {
+			pyramid.update(tile);
+		}
+		if (!_listeners.isEmpty()) {
+			fireChanged(EChangeType.CellsChanged, Collections
+					.singletonList(new Rectangle(_grid.getX(tile) - 1, _grid
+							.getY(tile) - 1, 3, 3)));
+		}
+	}
 
-			for (Tile tile : shortest) {
-				tile.setPath(true);
-			}
+	private void fireJobChanged() {
+		fireChanged(EChangeType.JobChanged, Collections.<Rectangle> emptyList());
+	}
+
+	private void fireRegenerated() {
+		fireChanged(EChangeType.Regenerated, Collections
+				.singletonList(new Rectangle(0, 0, getWidth(), getHeight())));
+	}
 
-			return true;
+	private void fireChanged(EChangeType type, List<Rectangle> region) {
+		if (_listeners.isEmpty()) {
+			return;
+		}
+		LabyrinthEvent event = new LabyrinthEvent(this, type, region);
+		for (LabyrinthListener listener : _listeners) {
+			listener.labyrinthChanged(event);
 		}
+	}
 
-		return false;
+	/**
+	 * Registers a listener which gets informed about every change.
+	 * 
+	 * @param listener
+	 */
+	public void addLabyrinthListener(LabyrinthListener listener) {
+		_listeners.add(listener);
 	}
 
-	public void setGenerating(boolean generating) {
-		_generating = generating;
+	public void removeLabyrinthListener(LabyrinthListener listener) {
+		_listeners.remove(listener);
 	}
 
-	public void setDirty(boolean dirty) {
-		_dirty = dirty;
+	/**
+	 * @return Seed of the generated labyrinth or null if it is unknown
+	 */
+	public Long getSeed() {
+		return _seed;
 	}
 
-	public boolean isGenerating() {
-		return _generating;
+	public int getWidth() {
+		return _grid.getWidth();
 	}
 
-	public boolean isDirty() {
-		return _dirty;
+	public int getHeight() {
+		return _grid.getHeight();
 	}
 
 	/**
-	 * Creates a text file definition of this labyrinth.
+	 * @return Estimated share of the running job which is done, from 0 to 1
+	 *         or -1 if unknown. It is 1 if no job is running.
+	 */
+	public double getProgress() {
+		BackgroundJob job = _job;
+		return job != null ? job.getProgress() : 1;
+	}
+
+	/**
+	 * @return Index of the starter tile or -1 if there is none
+	 */
+	public int getStart() {
+		return _start;
+	}
+
+	/**
+	 * @return The tiles of the last found path or null if there is none
+	 */
+	public int[] getPath() {
+		return _path;
+	}
+
+	/**
+	 * Searches the shortest path to the nearest exit and sets the visited
+	 * tiles to the path state. The previous path is cleared. Nothing is
+	 * searched while a labyrinth is generated, as the grid is a snapshot.
 	 * 
-	 * @param mazeFile
+	 * @param start
+	 *            Index of the starter tile
+	 * @return True if an exit can be reached
 	 */
-	public void save(File mazeFile) {
-		BufferedWriter writer = null;
-		try {
-			writer = new BufferedWriter(new FileWriter(mazeFile));
-
-			int row = 0;
-			while (row < _height) {
-				int col = 0;
-				while (col < _width) {
-					for (Tile tile : _tiles) {
-						if (tile.getCoordinate().getY() == row
-								&& tile.getCoordinate().getX() == col) {
-							writer.write(tile.getType() == ETileType.Empty ? '.'
-									: '#');
-						}
-					}
-					col++;
-				}
-				row++;
-				writer.write(String.format("%n")); // new line
+	public boolean findPathFrom(int start) {
+		if (isGenerating()) {
+			return false;
+		}
+		cancelSearch();
+		int[] path;
+		synchronized (SolveJob.LOCK) {
+			path = _solver.solve(_grid, start);
+		}
+		showPath(start, path);
+		return path != null;
+	}
+
+	/**
+	 * Searches the shortest path to the nearest exit in the background, see
+	 * {@link #findPathFrom(int)}. A running search is cancelled. Nothing is
+	 * searched while a labyrinth is generated or loaded.
+	 * 
+	 * @param start
+	 *            Index of the starter tile
+	 */
+	public void searchPath(int start) {
+		synchronized (this) {
+			BackgroundJob running = _job;
+			if (running != null && !(running instanceof SolveJob)) {
+				return;
 			}
+			startJob(new SolveJob(this, _solver, _grid, start));
+		}
+		fireJobChanged();
+	}
 
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				writer.close();
-			} catch (IOException e) {
-				e.printStackTrace();
+	/**
+	 * Shows the path found by a job, on the event dispatch thread.
+	 * 
+	 * @param job
+	 *            The search, ignored if it was replaced by another job or
+	 *            the labyrinth changed
+	 * @param start
+	 * @param path
+	 */
+	void pathFound(SolveJob job, int start, int[] path) {
+		if (job == _job && job.getGrid() == _grid) {
+			showPath(start, path);
+		}
+	}
+
+	/**
+	 * Cancels a running search, as its path would be outdated.
+	 */
+	private void cancelSearch() {
+		BackgroundJob job = _job;
+		if (job instanceof SolveJob) {
+			job.cancel();
+		}
+	}
+
+	/**
+	 * Replaces the previous path with a new one.
+	 * 
+	 * @param start
+	 *            Index of the starter tile
+	 * @param path
+	 *            Tiles of the path or null if no exit can be reached
+	 */
+	private void showPath(int start, int[] path) {
+		List<Rectangle> region = new ArrayList<>();
+		resetPath(region);
+
+		_start = start;
+		_grid.setStart(start, true);
+		region.add(cell(start));
+
+		_path = path;
+		if (_path != null) {
+			for (int tile : _path) {
+				_grid.setPath(tile, true);
+				region.add(cell(tile));
 			}
 		}
 
+		fireChanged(EChangeType.PathChanged, region);
 	}
 
 	/**
-	 * Parses a text file to deserialize a model.
+	 * Toggles a tile from empty to wall or from wall to empty.
 	 * 
-	 * @param mazeFile
+	 * @param tile
+	 *            Index of the tile
 	 */
-	private void parse(String mazeFile) {
-		BufferedReader br = null;
+	public void toggleTile(int tile) {
+		if (isGenerating()) {
+			// the grid is a snapshot which is replaced soon
+			return;
+		}
+		cancelSearch();
+		// waits for cancelled searches to stop reading the walls
+		synchronized (SolveJob.LOCK) {
+			_grid.setWall(tile, !_grid.isWall(tile));
+			_solver.tileToggled(_grid, tile);
+		}
+		if (_wallMask != null) {
+			_wallMask.update(tile);
+		}
+		wallChanged(tile);
+	}
 
-		try {
-			String sCurrentLine;
+	/**
+	 * Resets the starter tile and the tiles of the last found path.
+	 */
+	public void clearPath() {
+		cancelSearch();
+		List<Rectangle> region = new ArrayList<>();
+		resetPath(region);
+		if (!region.isEmpty()) {
+			fireChanged(EChangeType.PathChanged, region);
+		}
+	}
+
+	/**
+	 * Resets the starter tile and the path.
+	 * 
+	 * @param region
+	 *            Receives the cells of the reset tiles
+	 */
+	private void resetPath(List<Rectangle> region) {
+		if (_start >= 0) {
+			_grid.setStart(_start, false);
+			region.add(cell(_start));
+		}
+		if (_path != null) {
+			for (int tile : _path) {
+				_grid.setPath(tile, false);
+				region.add(cell(tile));
+			}
+		}
+		_start = -1;
+		_path = null;
+	}
 
-			br = new BufferedReader(new FileReader(mazeFile));
+	private Rectangle cell(int tile) {
+		return new Rectangle(_grid.getX(tile), _grid.getY(tile), 1, 1);
+	}
 
-			int row = 0;
-			while ((sCurrentLine = br.readLine()) != null) {
+	/**
+	 * Sets the strategy used to find paths.
+	 * 
+	 * @param solver
+	 */
+	public void setSolver(MazeSolver solver) {
+		_solver = solver;
+	}
+
+	public MazeSolver getSolver() {
+		return _solver;
+	}
 
-				for (int col = 0; col < sCurrentLine.length(); col++) {
-					_tiles.add(new Tile(new Coordinate(col, row), sCurrentLine
-							.charAt(col)));
+	/**
+	 * Sets the algorithm used to generate labyrinths.
+	 * 
+	 * @param generator
+	 */
+	public void setGenerator(MazeGenerator generator) {
+		_generator = generator;
+	}
 
-					if (col + 1 > _width) {
-						_width = col + 1;
-					}
-				}
+	public MazeGenerator getGenerator() {
+		return _generator;
+	}
 
-				row++;
-			}
+	/**
+	 * Sets how many exits generated labyrinths get and where.
+	 * 
+	 * @param exitPiercer
+	 */
+	public void setExitPiercer(ExitPiercer exitPiercer) {
+		_exitPiercer = exitPiercer;
+	}
 
-			_height = row;
+	public ExitPiercer getExitPiercer() {
+		return _exitPiercer;
+	}
 
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				if (br != null) {
-					br.close();
-				}
-			} catch (IOException ex) {
-				ex.printStackTrace();
-			}
-		}
+	public void setGenerating(boolean generating) {
+		_generating.set(generating);
 	}
 
 	/**
-	 * Recursively finds all the paths from the starter tile to the exits.
+	 * Sets if the cells should be stored bit-packed even for small
+	 * labyrinths. Takes effect the next time a labyrinth is generated or
+	 * loaded.
 	 * 
-	 * @param tile
-	 * @param visited
-	 * @return
-	 * @throws StackOverflowError
+	 * @param compact
 	 */
-	private boolean findPathFrom(Tile tile, ArrayList<Tile> visited)
-			throws StackOverflowError {
+	public void setCompact(boolean compact) {
+		_compact = compact;
+	}
 
-		ArrayList<Tile> neighbors = tile.getNeighbors(getTiles(),
-				Tile.ETileType.Empty);
+	public boolean isCompact() {
+		return _compact;
+	}
 
-		for (Tile neighbor : neighbors) {
-			if (visited.contains(neighbor)) {
-				continue;
-			}
+	public boolean isGenerating() {
+		return _generating.get();
+	}
 
-			visited.add(neighbor);
+	/**
+	 * Saves this labyrinth. Files ending with {@link MazeBinaryFile#EXTENSION}
+	 * are written in the binary format, files ending with
+	 * {@link ChunkedMazeFile#EXTENSION} in the chunked format and all others
+	 * as text.
+	 * 
+	 * @param mazeFile
+	 * @throws IOException
+	 */
+	public void save(File mazeFile) throws IOException {
+		if (mazeFile.getName().endsWith(MazeBinaryFile.EXTENSION)) {
+			new MazeBinaryFile(_grid, _seed).write(mazeFile);
+		} else if (mazeFile.getName().endsWith(ChunkedMazeFile.EXTENSION)) {
+			ChunkedMazeFile.write(_grid, _seed, mazeFile);
+		} else {
+			new MazeTextWriter().write(_grid, mazeFile);
+		}
+	}
 
-			if (neighbor.isExit(getWidth(), getHeight())) {
-				_paths.add(visited);
-				return true;
-			}
+	/**
+	 * Releases the file a chunked labyrinth is read from. The model must not
+	 * be used afterwards unless a new labyrinth is generated.
+	 */
+	public void close() {
+		close(_grid);
+	}
 
-			if (!findPathFrom(neighbor, new ArrayList<>(visited))) {
-				visited.remove(neighbor);
+	/**
+	 * Releases the file of a chunked grid.
+	 * 
+	 * @param grid
+	 *            Any grid or null
+	 */
+	static void close(Grid grid) {
+		if (grid instanceof ChunkedGrid) {
+			try {
+				((ChunkedGrid) grid).close();
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 		}
+	}
 
-		return false;
+	/**
+	 * Reads a labyrinth file on the current thread, see {@link LoadJob}.
+	 * 
+	 * @param mazeFile
+	 * @return False if the file could not be read
+	 */
+	private boolean parse(File mazeFile) {
+		LoadJob job = new LoadJob(this, mazeFile, _compact, _chunkCacheBudget);
+		try {
+			job.read();
+		} catch (IOException e) {
+			JOptionPane.showMessageDialog(null, "Could not load labyrinth: "
+					+ e.getMessage());
+			return false;
+		}
+		_grid = job.getGrid();
+		_seed = job.getSeed();
+		_wallMask = job.getWallMask();
+		fireRegenerated();
+		return true;
 	}
 
 }
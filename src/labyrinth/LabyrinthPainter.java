@@ -2,25 +2,55 @@ package labyrinth;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.geom.Line2D;
-import java.util.Iterator;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
-import labyrinth.Tile.ETileType;
+import labyrinth.LabyrinthEvent.EChangeType;
 
 /**
- * Paints a labyrinth model.
+ * Paints a labyrinth model. Either the labyrinth is fit into the available
+ * space or it is painted with a fixed tile size inside a scroll pane. The
+ * visible part is kept in an image and only the tiles which changed since the
+ * last paint are painted into it again before it is copied to the screen.
+ * When the tiles are smaller than {@link #LOD_TILE_SIZE} pixels the
+ * labyrinth is not painted tile by tile but the share of walls is written
+ * into the pixels of the image from the matching level of a
+ * {@link WallPyramid}. Without fancy graphics larger tiles are copied into
+ * the pixels of the image from prepainted stamps.
+ * <p>
+ * Changes of the model are collected and repainted at most once per
+ * {@link #REPAINT_DELAY} milliseconds.
  * 
  * @author Sebastian Häni <haeni.sebastian@gmail.com>
  * 
  */
-public class LabyrinthPainter extends JPanel {
+public class LabyrinthPainter extends JPanel implements Scrollable {
 
 	private static final long serialVersionUID = 7860248262127656628L;
 	private static final int TILE_TO_BORDER_RATIO = 8;
@@ -29,173 +59,894 @@ public class LabyrinthPainter extends JPanel {
 	private static final Color PATH_TILE_BACKGROUND_COLOR = Color.YELLOW;
 	private static final Color WALL_COLOR = Color.BLACK;
 	private static final Color OUTLINE_COLOR = Color.GRAY;
+	private static final int MIN_TILE_SIZE = 1;
+	private static final int MAX_TILE_SIZE = 256;
+	private static final double ZOOM_FACTOR = 1.25;
+
+	/**
+	 * Tiles smaller than this are painted as pixels instead of shapes.
+	 */
+	public static final int LOD_TILE_SIZE = 4;
+
+	// stamps of empty tiles follow the stamps of the 256 wall masks
+	private static final int EMPTY_STAMP = 256;
+	private static final int START_STAMP = 257;
+	private static final int PATH_STAMP = 258;
+
+	/**
+	 * Areas with more pixels are stamped by several threads.
+	 */
+	private static final int PARALLEL_PIXELS = 1 << 18;
+	private static final ForkJoinPool STAMP_POOL = new ForkJoinPool();
+	private static final BasicStroke OUTLINE_STROKE = new BasicStroke(1);
+
+	/**
+	 * Milliseconds to collect changes before they are repainted, about one
+	 * frame of a screen.
+	 */
+	public static final int REPAINT_DELAY = 16;
 
 	private int _borderWidth;
 	private int _width;
 	private int _height;
 	private LabyrinthModel _labyrinth;
 	private int _tileSize;
+	private double _scale;
+	private int[] _palette;
+	private BasicStroke _wallStroke;
+	private int[][] _stamps = new int[PATH_STAMP + 1][];
+	private int _stampsTileSize = -1;
+	private Line2D[][] _wallSegments = new Line2D[256][];
+	private int _wallSegmentsTileSize = -1;
+	private final DirtyCells _dirtyCells = new DirtyCells();
+	private final AtomicBoolean _repaintScheduled = new AtomicBoolean();
+	/**
+	 * Set when a new labyrinth replaced the one in the image. Snapshots of a
+	 * labyrinth being generated only change the carved cells.
+	 */
+	private final AtomicBoolean _regenerated = new AtomicBoolean(true);
+	private final Timer _repaintTimer;
+	private final LabyrinthListener _listener = new LabyrinthListener() {
+		@Override
+		public void labyrinthChanged(LabyrinthEvent event) {
+			if (event.getType() == EChangeType.JobChanged) {
+				return;
+			}
+			if (event.getType() == EChangeType.Regenerated) {
+				_regenerated.set(true);
+				_dirtyCells.addAll();
+			} else {
+				for (Rectangle cells : event.getRegion()) {
+					_dirtyCells.add(cells.x, cells.y, cells.width,
+							cells.height);
+				}
+			}
+			if (_repaintScheduled.compareAndSet(false, true)) {
+				_repaintTimer.start();
+			}
+		}
+	};
+	private BufferedImage _cache;
+	private Rectangle _cacheBounds = new Rectangle();
+	private double _cacheScale = -1;
+	private boolean _cacheValid;
+	private boolean _fitToWindow = true;
 	private boolean _showOutline = true;
 	private boolean _fancyGraphcis = true;
 
 	public LabyrinthPainter(LabyrinthModel labyrinth) {
 		_labyrinth = labyrinth;
+		_repaintTimer = new Timer(REPAINT_DELAY, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent event) {
+				repaintChanges();
+			}
+		});
+		_repaintTimer.setRepeats(false);
+		_labyrinth.addLabyrinthListener(_listener);
+	}
+
+	/**
+	 * Repaints the area of the cells which changed since the last paint.
+	 * Further changes schedule the next repaint.
+	 */
+	private void repaintChanges() {
+		_repaintScheduled.set(false);
+		Rectangle cells = _dirtyCells.getBounds(_labyrinth.getWidth(),
+				_labyrinth.getHeight());
+		if (cells != null) {
+			repaint(toArea(cells));
+		}
 	}
 
 	@Override
 	public void paint(Graphics g) {
 		super.paint(g);
-		Graphics2D g2 = (Graphics2D) g;
+		calculateSizes();
 
-		if (_fancyGraphcis) {
-			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-					RenderingHints.VALUE_ANTIALIAS_ON);
+		Rectangle visible = getVisibleRect();
+		if (visible.isEmpty()) {
+			return;
 		}
+		updateCache(visible);
+		g.drawImage(_cache, visible.x, visible.y, null);
+	}
 
-		calculateSizes();
+	/**
+	 * Brings the image with the visible part of the labyrinth up to date. It
+	 * is painted completely when the labyrinth, the tile size or the visible
+	 * size changed. After scrolling the image is moved and only the uncovered
+	 * area is painted. Otherwise only the tiles which changed are painted.
+	 * 
+	 * @param visible
+	 *            The visible area of this component
+	 */
+	private void updateCache(Rectangle visible) {
+		boolean regenerated = _regenerated.getAndSet(false);
+		List<Rectangle> dirtyCells = _dirtyCells.take(_labyrinth.getWidth(),
+				_labyrinth.getHeight());
 
-		g.setColor(BACKGROUND_COLOR);
-		g.fillRect(0, 0, _width, _height);
+		if (_cache == null || _cache.getWidth() != visible.width
+				|| _cache.getHeight() != visible.height) {
+			_cache = createCache(visible.width, visible.height);
+			_cacheValid = false;
+		}
+		if (!_cacheValid || regenerated || _scale != _cacheScale
+				|| !_cacheBounds.intersects(visible)) {
+			_cacheBounds = visible;
+			_cacheScale = _scale;
+			_cacheValid = true;
+			rasterize(visible);
+			return;
+		}
 
-		Iterator<Tile> it = _labyrinth.getTiles().iterator();
+		if (!_cacheBounds.getLocation().equals(visible.getLocation())) {
+			scrollCache(visible);
+		}
 
-		// draw tile content
-		while (it.hasNext()) {
-			Tile tile = it.next();
-
-			int x = tile.getCoordinate().getX() * _tileSize;
-			int y = tile.getCoordinate().getY() * _tileSize;
-
-			switch (tile.getType()) {
-			case Empty:
-				paintEmpty(g2, x, y, tile);
-				break;
-			case Wall:
-				paintWall(g2, x, y, tile);
-				break;
+		List<Rectangle> areas = new ArrayList<>(dirtyCells.size());
+		for (Rectangle cells : dirtyCells) {
+			Rectangle area = toArea(cells).intersection(visible);
+			if (!area.isEmpty()) {
+				areas.add(area);
 			}
 		}
+		rasterize(areas);
+	}
 
-		if (_showOutline) {
-			// create outline first so it will not overdraw tile content
+	/**
+	 * Calculates the area in which cells are painted.
+	 * 
+	 * @param cells
+	 *            Rectangle in columns and rows
+	 * @return Area in component
+	 */
+	private Rectangle toArea(Rectangle cells) {
+		int x = (int) Math.floor(cells.x * _scale);
+		int y = (int) Math.floor(cells.y * _scale);
+		int right = (int) Math.ceil((cells.x + cells.width) * _scale);
+		int bottom = (int) Math.ceil((cells.y + cells.height) * _scale);
+		Rectangle area = new Rectangle(x, y, right - x, bottom - y);
+		if (_scale < LOD_TILE_SIZE) {
+			// level of detail cells are up to two pixels large and reach
+			// beyond the changed tiles
+			area.grow(2, 2);
+		}
+		return area;
+	}
+
+	/**
+	 * Moves the content of the image to the new visible area and paints the
+	 * area which was not visible before.
+	 * 
+	 * @param visible
+	 *            The visible area of this component, overlapping the old one
+	 */
+	private void scrollCache(Rectangle visible) {
+		Rectangle old = _cacheBounds;
+		Graphics2D g = _cache.createGraphics();
+		g.copyArea(0, 0, _cache.getWidth(), _cache.getHeight(), old.x
+				- visible.x, old.y - visible.y);
+		g.dispose();
+		_cacheBounds = visible;
+
+		if (visible.x < old.x) {
+			rasterize(new Rectangle(visible.x, visible.y, old.x - visible.x,
+					visible.height));
+		} else if (visible.x > old.x) {
+			rasterize(new Rectangle(old.x + old.width, visible.y, visible.x
+					- old.x, visible.height));
+		}
+		if (visible.y < old.y) {
+			rasterize(new Rectangle(visible.x, visible.y, visible.width, old.y
+					- visible.y));
+		} else if (visible.y > old.y) {
+			rasterize(new Rectangle(visible.x, old.y + old.height,
+					visible.width, visible.y - old.y));
+		}
+	}
 
-			it = _labyrinth.getTiles().iterator();
-			while (it.hasNext()) {
-				Tile tile = it.next();
+	/**
+	 * Creates an image whose pixels can be written directly.
+	 * 
+	 * @param width
+	 * @param height
+	 * @return
+	 */
+	private BufferedImage createCache(int width, int height) {
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Paints an area of this component into the image.
+	 * 
+	 * @param area
+	 *            Area in component, inside the area of the image
+	 */
+	private void rasterize(Rectangle area) {
+		rasterize(Collections.singletonList(area));
+	}
 
-				int x = tile.getCoordinate().getX() * _tileSize;
-				int y = tile.getCoordinate().getY() * _tileSize;
+	/**
+	 * Paints areas of this component into the image.
+	 * 
+	 * @param areas
+	 *            Areas in component, inside the area of the image
+	 */
+	private void rasterize(List<Rectangle> areas) {
+		if (areas.isEmpty()) {
+			return;
+		}
 
-				paintOutline(g2, x, y);
+		if (_scale < LOD_TILE_SIZE) {
+			// the marks are set once as there may be many small areas
+			Rectangle bounds = new Rectangle(areas.get(0));
+			for (Rectangle area : areas) {
+				rasterizeOverview(area);
+				bounds.add(area);
 			}
+			paintMarks(bounds);
+			return;
+		}
 
+		if (!_fancyGraphcis) {
+			for (Rectangle area : areas) {
+				rasterizeStamps(area);
+			}
+			return;
 		}
 
+		for (Rectangle area : areas) {
+			Graphics2D g = _cache.createGraphics();
+			g.translate(-_cacheBounds.x, -_cacheBounds.y);
+			g.clip(area);
+			paintTiles(g, area);
+			g.dispose();
+		}
 	}
 
 	/**
-	 * Searches the tile and then starts the path finding algorithm.
+	 * Copies the stamps of the tiles inside an area into the pixels of the
+	 * image. Large areas are split into bands of rows which are stamped
+	 * concurrently, unless the grid is read chunk by chunk.
 	 * 
-	 * @param point
-	 *            Position of starter tile in component.
+	 * @param area
+	 *            Area in component, inside the area of the image
 	 */
-	public void searchPath(Point point) {
-		if (_labyrinth.isGenerating()) {
+	private void rasterizeStamps(final Rectangle area) {
+		final Grid grid = _labyrinth.getGrid();
+		final int[] pixels = ((DataBufferInt) _cache.getRaster()
+				.getDataBuffer()).getData();
+		final int stride = _cache.getWidth();
+		if (_stampsTileSize != _tileSize) {
+			_stamps = new int[PATH_STAMP + 1][];
+			_stampsTileSize = _tileSize;
+		}
+
+		// pixels outside of the labyrinth
+		int right = grid.getWidth() * _tileSize;
+		int bottom = grid.getHeight() * _tileSize;
+		for (int y = area.y; y < area.y + area.height; y++) {
+			int offset = (y - _cacheBounds.y) * stride - _cacheBounds.x;
+			int from = y < bottom ? Math.max(area.x, right) : area.x;
+			if (from < area.x + area.width) {
+				Arrays.fill(pixels, offset + from, offset + area.x
+						+ area.width, BACKGROUND_COLOR.getRGB());
+			}
+			if (_showOutline && y <= bottom && right >= area.x
+					&& right < area.x + area.width) {
+				pixels[offset + right] = OUTLINE_COLOR.getRGB();
+			}
+			if (_showOutline && y == bottom) {
+				int to = Math.min(area.x + area.width, right);
+				if (area.x < to) {
+					Arrays.fill(pixels, offset + area.x, offset + to,
+							OUTLINE_COLOR.getRGB());
+				}
+			}
+		}
+
+		final int firstRow = area.y / _tileSize;
+		final int lastRow = Math.min(grid.getHeight() - 1,
+				(area.y + area.height - 1) / _tileSize);
+		if (lastRow < firstRow || area.x >= right) {
 			return;
 		}
-		Iterator<Tile> it = _labyrinth.getTiles().iterator();
-		Tile startTile = null;
-		while (it.hasNext()) {
-			Tile tile = it.next();
 
-			if (tile.getType() != Tile.ETileType.Empty) {
-				continue;
+		int rows = lastRow - firstRow + 1;
+		if ((long) area.width * area.height < PARALLEL_PIXELS || rows < 2
+				|| grid instanceof ChunkedGrid) {
+			stampRows(area, firstRow, lastRow, grid, pixels, stride);
+			return;
+		}
+
+		int bands = Math.min(rows, STAMP_POOL.getParallelism() * 4);
+		List<Callable<Void>> tasks = new ArrayList<>(bands);
+		for (int band = 0; band < bands; band++) {
+			final int bandFirstRow = firstRow + band * rows / bands;
+			final int bandLastRow = firstRow + (band + 1) * rows / bands - 1;
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					stampRows(area, bandFirstRow, bandLastRow, grid, pixels,
+							stride);
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Void> future : STAMP_POOL.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
 			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
 
-			tile.setPath(false);
+	/**
+	 * Copies the stamps of a band of tile rows inside an area into the
+	 * pixels of the image. The kind of every tile is looked up once per tile
+	 * row, then every row of pixels is copied stamp by stamp.
+	 * 
+	 * @param area
+	 *            Area in component, inside the area of the image
+	 * @param firstRow
+	 *            First tile row of the band
+	 * @param lastRow
+	 *            Last tile row of the band
+	 * @param grid
+	 * @param pixels
+	 *            Pixels of the image
+	 * @param stride
+	 *            Width of the image
+	 */
+	private void stampRows(Rectangle area, int firstRow, int lastRow,
+			Grid grid, int[] pixels, int stride) {
+		int size = _tileSize;
+		int firstCol = area.x / size;
+		int lastCol = Math.min(grid.getWidth() - 1, (area.x + area.width - 1)
+				/ size);
+		int[][] stamps = new int[PATH_STAMP + 1][];
+		int[] kinds = new int[lastCol - firstCol + 1];
+		long[] words = new long[(grid.getWidth() + 63) >>> 6];
+		WallMask mask = _labyrinth.getWallMask();
+		if (mask != null && mask.getGrid() != grid) {
+			mask = null;
+		}
 
-			int x = tile.getCoordinate().getX() * _tileSize;
-			int y = tile.getCoordinate().getY() * _tileSize;
+		for (int row = firstRow; row <= lastRow; row++) {
+			grid.copyRow(row, words);
+			for (int col = firstCol; col <= lastCol; col++) {
+				int index = grid.index(col, row);
+				int kind;
+				if ((words[col >>> 6] & (1L << col)) != 0) {
+					kind = mask != null ? mask.get(index) : WallMask.compute(
+							grid, col, row);
+				} else if (grid.isStart(index)) {
+					kind = START_STAMP;
+				} else if (grid.isPath(index)) {
+					kind = PATH_STAMP;
+				} else {
+					kind = EMPTY_STAMP;
+				}
+				if (stamps[kind] == null) {
+					stamps[kind] = getStamp(kind);
+				}
+				kinds[col - firstCol] = kind;
+			}
 
-			Rectangle rect = new Rectangle(x, y, _tileSize, _tileSize);
+			int top = Math.max(area.y, row * size);
+			int bottom = Math.min(area.y + area.height, (row + 1) * size);
+			for (int y = top; y < bottom; y++) {
+				int offset = (y - _cacheBounds.y) * stride - _cacheBounds.x;
+				int stampOffset = (y - row * size) * size;
+				for (int col = firstCol; col <= lastCol; col++) {
+					int left = Math.max(area.x, col * size);
+					int right = Math.min(area.x + area.width, (col + 1) * size);
+					System.arraycopy(stamps[kinds[col - firstCol]], stampOffset
+							+ left - col * size, pixels, offset + left, right
+							- left);
+				}
+			}
+		}
+	}
 
-			if (rect.contains(point)) {
-				tile.setStart(true);
-				startTile = tile;
+	/**
+	 * Looks up the pixels of a tile, which are painted once per tile size
+	 * for every kind of tile. Walls do not reach into neighboring tiles like
+	 * when painted as shapes.
+	 * 
+	 * @param kind
+	 *            Wall mask or one of the stamps of empty tiles
+	 * @return Pixels of the tile row by row
+	 */
+	private synchronized int[] getStamp(int kind) {
+		if (_stamps[kind] != null) {
+			return _stamps[kind];
+		}
+
+		BufferedImage image = new BufferedImage(_tileSize, _tileSize,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(BACKGROUND_COLOR);
+		g.fillRect(0, 0, _tileSize, _tileSize);
+		if (kind == START_STAMP) {
+			paintDisc(g, 0, 0, STARTER_TILE_BACKGROUND_COLOR);
+		} else if (kind == PATH_STAMP) {
+			paintDisc(g, 0, 0, PATH_TILE_BACKGROUND_COLOR);
+		} else if (kind != EMPTY_STAMP) {
+			paintWall(g, 0, 0, kind);
+		}
+		if (_showOutline) {
+			paintOutline(g, 0, 0);
+		}
+		g.dispose();
+
+		int[] stamp = ((DataBufferInt) image.getRaster().getDataBuffer())
+				.getData();
+		_stamps[kind] = stamp;
+		return stamp;
+	}
+
+	/**
+	 * Writes the pixels of an area directly into the image. Every pixel gets
+	 * the share of walls of the cell it lies in, taken from the level of
+	 * detail whose cells are about as large as a pixel. Labyrinths without
+	 * levels of detail are sampled tile by tile.
+	 * 
+	 * @param area
+	 *            Area in component, inside the area of the image
+	 */
+	private void rasterizeOverview(Rectangle area) {
+		int[] pixels = ((DataBufferInt) _cache.getRaster().getDataBuffer())
+				.getData();
+		int stride = _cache.getWidth();
+		int[] palette = getPalette();
+		Grid grid = _labyrinth.getGrid();
+
+		if (_scale <= 0 || grid.size() == 0) {
+			for (int y = area.y; y < area.y + area.height; y++) {
+				int offset = (y - _cacheBounds.y) * stride - _cacheBounds.x;
+				Arrays.fill(pixels, offset + area.x, offset + area.x
+						+ area.width, palette[0]);
+			}
+			return;
+		}
+
+		// pick the level whose cells are at least as large as a pixel
+		WallPyramid pyramid = _labyrinth.getWallPyramid();
+		int level = 0;
+		if (pyramid != null && pyramid.getGrid() == grid) {
+			while (level + 1 < pyramid.getLevels()
+					&& (1 << level) * _scale < 1) {
+				level++;
+			}
+		}
+
+		// cell of every column, -1 to the right of the labyrinth
+		int levelWidth = level == 0 ? grid.getWidth() : pyramid
+				.getWidth(level);
+		int[] columns = new int[area.width];
+		for (int i = 0; i < area.width; i++) {
+			int column = (int) ((area.x + i) / _scale);
+			columns[i] = column < grid.getWidth() ? column >> level : -1;
+		}
+
+		long[] words = new long[(grid.getWidth() + 63) >>> 6];
+		byte[] densities = level == 0 ? null : pyramid.getLevel(level);
+		for (int y = area.y; y < area.y + area.height; y++) {
+			int offset = (y - _cacheBounds.y) * stride + area.x
+					- _cacheBounds.x;
+			int row = (int) (y / _scale);
+			if (row >= grid.getHeight()) {
+				Arrays.fill(pixels, offset, offset + area.width, palette[0]);
+				continue;
+			}
+
+			if (level == 0) {
+				grid.copyRow(row, words);
+				for (int i = 0; i < area.width; i++) {
+					int column = columns[i];
+					boolean wall = column >= 0
+							&& (words[column >>> 6] & (1L << column)) != 0;
+					pixels[offset + i] = wall ? palette[255] : palette[0];
+				}
 			} else {
-				tile.setStart(false);
+				int rowOffset = (row >> level) * levelWidth;
+				for (int i = 0; i < area.width; i++) {
+					int column = columns[i];
+					pixels[offset + i] = column < 0 ? palette[0]
+							: palette[densities[rowOffset + column] & 0xff];
+				}
 			}
 		}
 
-		if (startTile != null) {
-			_labyrinth.findPathFrom(startTile);
+	}
+
+	/**
+	 * Sets the pixels of the starter tile and the path inside an area after
+	 * the walls were written.
+	 * 
+	 * @param area
+	 *            Area in component, inside the area of the image
+	 */
+	private void paintMarks(Rectangle area) {
+		int[] pixels = ((DataBufferInt) _cache.getRaster().getDataBuffer())
+				.getData();
+		int stride = _cache.getWidth();
+		Grid grid = _labyrinth.getGrid();
+
+		int[] path = _labyrinth.getPath();
+		if (path != null) {
+			for (int tile : path) {
+				fillTile(pixels, stride, area, grid, tile,
+						PATH_TILE_BACKGROUND_COLOR.getRGB());
+			}
 		}
+		int start = _labyrinth.getStart();
+		if (start >= 0) {
+			fillTile(pixels, stride, area, grid, start,
+					STARTER_TILE_BACKGROUND_COLOR.getRGB());
+		}
+	}
 
-		repaint();
+	/**
+	 * Sets the pixels of a tile which lie inside an area. A tile smaller
+	 * than a pixel gets the pixel it starts in.
+	 * 
+	 * @param pixels
+	 *            Pixels of the image
+	 * @param stride
+	 *            Width of the image
+	 * @param area
+	 *            Area in component
+	 * @param grid
+	 * @param tile
+	 * @param rgb
+	 */
+	private void fillTile(int[] pixels, int stride, Rectangle area, Grid grid,
+			int tile, int rgb) {
+		int x = (int) Math.floor(grid.getX(tile) * _scale);
+		int y = (int) Math.floor(grid.getY(tile) * _scale);
+		int right = Math.min(area.x + area.width,
+				(int) Math.ceil((grid.getX(tile) + 1) * _scale));
+		int bottom = Math.min(area.y + area.height,
+				(int) Math.ceil((grid.getY(tile) + 1) * _scale));
+		for (int py = Math.max(y, area.y); py < bottom; py++) {
+			int offset = (py - _cacheBounds.y) * stride - _cacheBounds.x;
+			for (int px = Math.max(x, area.x); px < right; px++) {
+				pixels[offset + px] = rgb;
+			}
+		}
 	}
 
 	/**
-	 * Searches the tile and toggles type of tile from empty to wall.
+	 * @return Colors from the background for no walls at index 0 to the wall
+	 *         color for only walls at index 255
+	 */
+	private int[] getPalette() {
+		if (_palette == null) {
+			_palette = new int[256];
+			int background = BACKGROUND_COLOR.getRGB();
+			int wall = WALL_COLOR.getRGB();
+			for (int i = 0; i < _palette.length; i++) {
+				int rgb = 0;
+				for (int shift = 0; shift < 24; shift += 8) {
+					int from = (background >> shift) & 0xff;
+					int to = (wall >> shift) & 0xff;
+					rgb |= (from + (to - from) * i / 255) << shift;
+				}
+				_palette[i] = rgb;
+			}
+		}
+		return _palette;
+	}
+
+	/**
+	 * Paints the tiles inside an area, plus the ones around them as their
+	 * walls reach into it.
 	 * 
-	 * @param point
-	 *            Position of tile in component.
+	 * @param g2
+	 *            Graphics clipped to the area
+	 * @param clip
+	 *            Area in component to paint
 	 */
-	public void toggleTile(Point point) {
-		Iterator<Tile> it = _labyrinth.getTiles().iterator();
-		while (it.hasNext()) {
-			Tile tile = it.next();
+	private void paintTiles(Graphics2D g2, Rectangle clip) {
+		if (_fancyGraphcis) {
+			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_ON);
+		}
+
+		g2.setColor(BACKGROUND_COLOR);
+		g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		Grid grid = _labyrinth.getGrid();
+		if (_tileSize == 0 || grid.size() == 0) {
+			return;
+		}
+
+		// visible tiles, plus one around them as walls reach into them
+		int firstCol = Math.max(0, clip.x / _tileSize - 1);
+		int firstRow = Math.max(0, clip.y / _tileSize - 1);
+		int lastCol = Math.min(grid.getWidth() - 1, (clip.x + clip.width)
+				/ _tileSize + 1);
+		int lastRow = Math.min(grid.getHeight() - 1, (clip.y + clip.height)
+				/ _tileSize + 1);
+
+		WallMask mask = _labyrinth.getWallMask();
+		if (mask != null && mask.getGrid() != grid) {
+			mask = null;
+		}
+
+		// draw tile content
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				int index = grid.index(col, row);
+				int x = col * _tileSize;
+				int y = row * _tileSize;
 
-			int x = tile.getCoordinate().getX() * _tileSize;
-			int y = tile.getCoordinate().getY() * _tileSize;
+				if (grid.isWall(index)) {
+					paintWall(g2, x, y, mask != null ? mask.get(index)
+							: WallMask.compute(grid, col, row));
+				} else {
+					paintEmpty(g2, x, y, index, grid);
+				}
+			}
+		}
 
-			Rectangle rect = new Rectangle(x, y, _tileSize, _tileSize);
+		if (_showOutline) {
+			// create outline first so it will not overdraw tile content
 
-			if (rect.contains(point)) {
-				tile.setType(tile.getType() == ETileType.Empty ? ETileType.Wall
-						: ETileType.Empty);
-				break;
+			for (int row = firstRow; row <= lastRow; row++) {
+				for (int col = firstCol; col <= lastCol; col++) {
+					paintOutline(g2, col * _tileSize, row * _tileSize);
+				}
 			}
+
+		}
+
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if (_fitToWindow) {
+			return super.getPreferredSize();
+		}
+		return new Dimension(_labyrinth.getWidth() * _tileSize,
+				_labyrinth.getHeight() * _tileSize);
+	}
+
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		return getPreferredSize();
+	}
+
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visibleRect,
+			int orientation, int direction) {
+		return Math.max(1, _tileSize);
+	}
+
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visibleRect,
+			int orientation, int direction) {
+		int extent = orientation == SwingConstants.HORIZONTAL ? visibleRect.width
+				: visibleRect.height;
+		return Math.max(1, extent - _tileSize);
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return _fitToWindow;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return _fitToWindow;
+	}
+
+	/**
+	 * Fits the labyrinth into the available space again after zooming.
+	 */
+	public void fitToWindow() {
+		_fitToWindow = true;
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Zooms in or out by steps of 25 percent while keeping the tile under the
+	 * given point in place. The labyrinth is not fit to the window anymore
+	 * and can be scrolled.
+	 * 
+	 * @param steps
+	 *            Positive to zoom in, negative to zoom out
+	 * @param anchor
+	 *            Position in component which stays in place
+	 */
+	public void zoom(int steps, Point anchor) {
+		calculateSizes();
+		int oldSize = Math.max(MIN_TILE_SIZE, _tileSize);
+		double oldScale = _scale > 0 ? _scale : oldSize;
+		int newSize = (int) Math.round(oldSize * Math.pow(ZOOM_FACTOR, steps));
+		if (newSize == oldSize) {
+			newSize += Integer.signum(steps);
+		}
+		newSize = Math.max(MIN_TILE_SIZE, Math.min(MAX_TILE_SIZE, newSize));
+		if (newSize == _tileSize && !_fitToWindow) {
+			return;
+		}
+
+		JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(
+				JViewport.class, this);
+		Point view = viewport != null ? viewport.getViewPosition()
+				: new Point();
+
+		_fitToWindow = false;
+		_tileSize = newSize;
+		_scale = newSize;
+		_borderWidth = _tileSize / TILE_TO_BORDER_RATIO;
+		revalidate();
+
+		if (viewport != null) {
+			// lay out right away so the new view position is not clamped
+			JScrollPane scrollPane = (JScrollPane) SwingUtilities
+					.getAncestorOfClass(JScrollPane.class, this);
+			scrollPane.validate();
+			int x = (int) (anchor.x * newSize / oldScale)
+					- (anchor.x - view.x);
+			int y = (int) (anchor.y * newSize / oldScale)
+					- (anchor.y - view.y);
+			Dimension extent = viewport.getExtentSize();
+			Dimension size = getPreferredSize();
+			viewport.setViewPosition(new Point(Math.max(0,
+					Math.min(x, size.width - extent.width)), Math.max(0,
+					Math.min(y, size.height - extent.height))));
 		}
 		repaint();
 	}
 
+	/**
+	 * Searches the tile and then starts the path finding algorithm.
+	 * 
+	 * @param point
+	 *            Position of starter tile in component.
+	 */
+	public void searchPath(Point point) {
+		if (_labyrinth.isGenerating()) {
+			return;
+		}
+		Grid grid = _labyrinth.getGrid();
+
+		int startTile = getTileAt(point);
+		if (startTile >= 0 && !grid.isWall(startTile)) {
+			_labyrinth.searchPath(startTile);
+		} else {
+			_labyrinth.clearPath();
+		}
+	}
+
+	/**
+	 * Searches the tile and toggles type of tile from empty to wall.
+	 * 
+	 * @param point
+	 *            Position of tile in component.
+	 */
+	public void toggleTile(Point point) {
+		int tile = getTileAt(point);
+		if (tile >= 0) {
+			_labyrinth.toggleTile(tile);
+		}
+	}
+
 	/**
 	 * Set labyrinth model.
 	 * 
 	 * @param model
 	 */
 	public void setModel(LabyrinthModel model) {
+		_labyrinth.removeLabyrinthListener(_listener);
 		_labyrinth = model;
+		_labyrinth.addLabyrinthListener(_listener);
+		_cacheValid = false;
+		repaint();
 	}
 
 	public void setShowOutline(boolean showOutline) {
 		_showOutline = showOutline;
+		_stampsTileSize = -1;
+		_cacheValid = false;
 		repaint();
 	}
 
 	public void setFancyGraphics(boolean fancyGraphics) {
 		_fancyGraphcis = fancyGraphics;
+		_cacheValid = false;
 		repaint();
 	}
 
+	/**
+	 * Looks up the tile which is painted at the given position.
+	 * 
+	 * @param point
+	 *            Position in component
+	 * @return Index of the tile or -1 if there is no tile at this position
+	 */
+	private int getTileAt(Point point) {
+		if (_scale <= 0 || point.x < 0 || point.y < 0) {
+			return -1;
+		}
+		Grid grid = _labyrinth.getGrid();
+		int col = (int) (point.x / _scale);
+		int row = (int) (point.y / _scale);
+		if (!grid.contains(col, row)) {
+			return -1;
+		}
+		return grid.index(col, row);
+	}
+
 	/**
 	 * Calculates the tile size, border width and the total width and height of
-	 * the labyrinth based on how much space is available.
+	 * the labyrinth. When fitting to the window the tile size depends on how
+	 * much space is available, otherwise it is given by the zoom.
 	 */
 	private void calculateSizes() {
 		_width = getSize().width;
 		_height = getSize().height;
 
-		int tileWidth = _width / _labyrinth.getWidth();
-		int tileHeight = _height / _labyrinth.getHeight();
+		if (_fitToWindow) {
+			int tileWidth = _width / Math.max(1, _labyrinth.getWidth());
+			int tileHeight = _height / Math.max(1, _labyrinth.getHeight());
 
-		if (tileWidth > tileHeight) {
-			_tileSize = tileHeight;
-		} else {
-			_tileSize = tileWidth;
+			if (tileWidth > tileHeight) {
+				_tileSize = tileHeight;
+			} else {
+				_tileSize = tileWidth;
+			}
+		} else if (!getPreferredSize().equals(getSize())) {
+			// the labyrinth changed its size
+			revalidate();
 		}
 
 		_borderWidth = _tileSize / TILE_TO_BORDER_RATIO;
+
+		// tiles smaller than a pixel when the labyrinth does not fit
+		_scale = _tileSize;
+		if (_tileSize == 0 && _labyrinth.getWidth() > 0
+				&& _labyrinth.getHeight() > 0) {
+			_scale = Math.min((double) _width / _labyrinth.getWidth(),
+					(double) _height / _labyrinth.getHeight());
+		}
 	}
 
 	/**
@@ -210,7 +961,7 @@ public class LabyrinthPainter extends JPanel {
 	 */
 	private void paintOutline(Graphics2D g, int x, int y) {
 		g.setColor(OUTLINE_COLOR);
-		g.setStroke(new BasicStroke(1));
+		g.setStroke(OUTLINE_STROKE);
 		g.drawRect(x, y, _tileSize, _tileSize);
 	}
 
@@ -223,21 +974,21 @@ public class LabyrinthPainter extends JPanel {
 	 *            coordinate in model
 	 * @param y
 	 *            coordinate in model
-	 * @param tile
-	 *            The tile
+	 * @param index
+	 *            Index of the tile
+	 * @param grid
+	 *            Grid containing the tile
 	 */
-	private void paintEmpty(Graphics2D g, int x, int y, Tile tile) {
-		if (tile.isStart()) {
-			g.setColor(STARTER_TILE_BACKGROUND_COLOR);
-			g.fillOval(x + 1, y + 1, _tileSize - 2, _tileSize - 2);
-		} else if (tile.isPath()) {
-			g.setColor(PATH_TILE_BACKGROUND_COLOR);
-			g.fillOval(x + 1, y + 1, _tileSize - 2, _tileSize - 2);
+	private void paintEmpty(Graphics2D g, int x, int y, int index, Grid grid) {
+		if (grid.isStart(index)) {
+			paintDisc(g, x, y, STARTER_TILE_BACKGROUND_COLOR);
+		} else if (grid.isPath(index)) {
+			paintDisc(g, x, y, PATH_TILE_BACKGROUND_COLOR);
 		}
 	}
 
 	/**
-	 * Draws a single wall tile.
+	 * Fills an empty tile with a disc to mark it.
 	 * 
 	 * @param g
 	 *            Graphics
@@ -245,12 +996,32 @@ public class LabyrinthPainter extends JPanel {
 	 *            coordinate in model
 	 * @param y
 	 *            coordinate in model
-	 * @param tile
-	 *            The tile
+	 * @param color
+	 */
+	private void paintDisc(Graphics2D g, int x, int y, Color color) {
+		g.setColor(color);
+		g.fillOval(x + 1, y + 1, _tileSize - 2, _tileSize - 2);
+	}
+
+	/**
+	 * Draws a single wall tile: a dot in the middle and a line to every
+	 * neighbor which is a wall too.
+	 * 
+	 * @param g
+	 *            Graphics
+	 * @param x
+	 *            coordinate in model
+	 * @param y
+	 *            coordinate in model
+	 * @param mask
+	 *            The neighbors which are walls, see {@link WallMask}
 	 */
-	private void paintWall(Graphics2D g, int x, int y, Tile tile) {
+	private void paintWall(Graphics2D g, int x, int y, int mask) {
 		g.setColor(WALL_COLOR);
-		g.setStroke(new BasicStroke(_borderWidth));
+		if (_wallStroke == null || _wallStroke.getLineWidth() != _borderWidth) {
+			_wallStroke = new BasicStroke(_borderWidth);
+		}
+		g.setStroke(_wallStroke);
 
 		int halfTileSize = _tileSize / 2;
 
@@ -259,71 +1030,72 @@ public class LabyrinthPainter extends JPanel {
 		int dy = y + halfTileSize - _borderWidth;
 		g.fillOval(dx, dy, 2 * _borderWidth, 2 * _borderWidth);
 
-		// straight lines
-		if (tile.getNeighborLeft(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x;
-			int ay = y + halfTileSize;
-			int bx = x + halfTileSize;
-			int by = ay;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+		if (mask != 0) {
+			g.translate(x, y);
+			for (Line2D segment : getWallSegments(mask)) {
+				g.draw(segment);
+			}
+			g.translate(-x, -y);
 		}
+	}
 
-		if (tile.getNeighborTop(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x + halfTileSize;
-			int ay = y;
-			int bx = ax;
-			int by = y + halfTileSize;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+	/**
+	 * Looks up the lines of a wall tile relative to its top left corner. The
+	 * lines are created once per tile size for every combination of wall
+	 * neighbors.
+	 * 
+	 * @param mask
+	 *            The neighbors which are walls, see {@link WallMask}
+	 * @return
+	 */
+	private Line2D[] getWallSegments(int mask) {
+		if (_wallSegmentsTileSize != _tileSize) {
+			_wallSegments = new Line2D[256][];
+			_wallSegmentsTileSize = _tileSize;
 		}
-
-		if (tile.getNeighborRight(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x + halfTileSize;
-			int ay = y + halfTileSize;
-			int bx = x + _tileSize;
-			int by = ay;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+		if (_wallSegments[mask] != null) {
+			return _wallSegments[mask];
 		}
 
-		if (tile.getNeighborBottom(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x + halfTileSize;
-			int ay = y + halfTileSize;
-			int bx = ax;
-			int by = y + _tileSize;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+		int half = _tileSize / 2;
+		Line2D[] segments = new Line2D[Integer.bitCount(mask)];
+		int count = 0;
+
+		// straight lines
+		if ((mask & WallMask.LEFT) != 0) {
+			count = addLine(segments, count, 0, half, half, half);
+		}
+		if ((mask & WallMask.UP) != 0) {
+			count = addLine(segments, count, half, 0, half, half);
+		}
+		if ((mask & WallMask.RIGHT) != 0) {
+			count = addLine(segments, count, half, half, _tileSize, half);
+		}
+		if ((mask & WallMask.DOWN) != 0) {
+			count = addLine(segments, count, half, half, half, _tileSize);
 		}
 
 		// diagonal lines
-		if (tile.getNeighborTopLeft(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x + halfTileSize;
-			int ay = y + halfTileSize;
-			int bx = x;
-			int by = y;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+		if ((mask & WallMask.UP_LEFT) != 0) {
+			count = addLine(segments, count, half, half, 0, 0);
 		}
-
-		if (tile.getNeighborTopRight(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x + halfTileSize;
-			int ay = y + halfTileSize;
-			int bx = x + _tileSize;
-			int by = y;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+		if ((mask & WallMask.UP_RIGHT) != 0) {
+			count = addLine(segments, count, half, half, _tileSize, 0);
 		}
-
-		if (tile.getNeighborBottomLeft(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x + halfTileSize;
-			int ay = y + halfTileSize;
-			int bx = x;
-			int by = y + _tileSize;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+		if ((mask & WallMask.DOWN_LEFT) != 0) {
+			count = addLine(segments, count, half, half, 0, _tileSize);
 		}
-
-		if (tile.getNeighborBottomRight(_labyrinth.getTiles()).getType() == ETileType.Wall) {
-			int ax = x + halfTileSize;
-			int ay = y + halfTileSize;
-			int bx = x + _tileSize;
-			int by = y + _tileSize;
-			g.draw(new Line2D.Float(ax, ay, bx, by));
+		if ((mask & WallMask.DOWN_RIGHT) != 0) {
+			count = addLine(segments, count, half, half, _tileSize, _tileSize);
 		}
 
+		_wallSegments[mask] = segments;
+		return segments;
+	}
+
+	private static int addLine(Line2D[] segments, int count, int ax, int ay,
+			int bx, int by) {
+		segments[count] = new Line2D.Float(ax, ay, bx, by);
+		return count + 1;
 	}
 }
@@ -0,0 +1,121 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Base class of the generators which work on a lattice of cells. The cells
+ * are the tiles with odd coordinates, the tiles between two cells are the
+ * walls which can be carved out to connect them. The resulting labyrinths
+ * are perfect: there is exactly one path between any two cells.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+abstract class LatticeGenerator implements MazeGenerator {
+
+	protected Grid _grid;
+	protected CarveListener _listener;
+	protected int _columns;
+	protected int _rows;
+
+	@Override
+	public final void generate(Grid grid, Random random,
+			CarveListener listener) {
+		_grid = grid;
+		_listener = listener;
+		_columns = (grid.getWidth() - 1) / 2;
+		_rows = (grid.getHeight() - 1) / 2;
+		try {
+			generate(random);
+		} finally {
+			_grid = null;
+			_listener = null;
+		}
+	}
+
+	/**
+	 * Connects the cells of the lattice.
+	 * 
+	 * @param random
+	 */
+	protected abstract void generate(Random random);
+
+	/**
+	 * @param column
+	 * @param row
+	 * @return Number of the cell, counted row by row
+	 */
+	protected int cell(int column, int row) {
+		return row * _columns + column;
+	}
+
+	/**
+	 * Carves out the tile of a cell.
+	 * 
+	 * @param cell
+	 */
+	protected void carveCell(int cell) {
+		carve(2 * (cell % _columns) + 1, 2 * (cell / _columns) + 1);
+	}
+
+	/**
+	 * Carves out two neighboring cells and the wall between them.
+	 * 
+	 * @param cell
+	 * @param neighbor
+	 */
+	protected void carvePassage(int cell, int neighbor) {
+		int x1 = 2 * (cell % _columns) + 1;
+		int y1 = 2 * (cell / _columns) + 1;
+		int x2 = 2 * (neighbor % _columns) + 1;
+		int y2 = 2 * (neighbor / _columns) + 1;
+
+		carve(x1, y1);
+		carve((x1 + x2) / 2, (y1 + y2) / 2);
+		carve(x2, y2);
+	}
+
+	/**
+	 * Collects the horizontal and vertical neighbor cells of a cell.
+	 * 
+	 * @param cell
+	 * @param neighbors
+	 *            Receives the neighbors, needs room for four
+	 * @return Number of neighbors
+	 */
+	protected int getNeighbors(int cell, int[] neighbors) {
+		int column = cell % _columns;
+		int row = cell / _columns;
+		int count = 0;
+		if (column > 0) {
+			neighbors[count++] = cell - 1;
+		}
+		if (row > 0) {
+			neighbors[count++] = cell - _columns;
+		}
+		if (column < _columns - 1) {
+			neighbors[count++] = cell + 1;
+		}
+		if (row < _rows - 1) {
+			neighbors[count++] = cell + _columns;
+		}
+		return count;
+	}
+
+	private void carve(int x, int y) {
+		int tile = _grid.index(x, y);
+		if (_grid.isWall(tile)) {
+			carveTile(tile);
+			_listener.carved(tile);
+		}
+	}
+
+	/**
+	 * Carves out a single tile.
+	 * 
+	 * @param tile
+	 */
+	protected void carveTile(int tile) {
+		_grid.setWall(tile, false);
+	}
+}
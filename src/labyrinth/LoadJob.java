@@ -0,0 +1,106 @@
+package labyrinth;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JOptionPane;
+
+/**
+ * Reads a text, binary or chunked labyrinth file in the background. The
+ * format is detected by the content of the file. Chunked files are not read
+ * completely but chunk by chunk when the tiles are accessed. The readers
+ * cannot stop in the middle of a file, so a cancelled job still reads it but
+ * drops it.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class LoadJob extends BackgroundJob {
+
+	private final LabyrinthModel _model;
+	private final File _file;
+	private final boolean _compact;
+	private final long _chunkCacheBudget;
+	private Grid _grid;
+	private Long _seed;
+	private WallMask _wallMask;
+
+	/**
+	 * @param model
+	 *            Gets the labyrinth when it is read
+	 * @param file
+	 * @param compact
+	 *            If the cells should be stored bit-packed even for small
+	 *            labyrinths
+	 * @param chunkCacheBudget
+	 *            Memory budget in bytes for the chunks of a chunked labyrinth
+	 *            file
+	 */
+	public LoadJob(LabyrinthModel model, File file, boolean compact,
+			long chunkCacheBudget) {
+		super("Loading " + file.getName());
+		_model = model;
+		_file = file;
+		_compact = compact;
+		_chunkCacheBudget = chunkCacheBudget;
+	}
+
+	@Override
+	protected void execute() throws IOException {
+		read();
+	}
+
+	/**
+	 * Reads the file and computes the wall masks, on the current thread.
+	 * 
+	 * @throws IOException
+	 */
+	public void read() throws IOException {
+		if (ChunkedMazeFile.isChunked(_file)) {
+			ChunkedGrid chunked = ChunkedGrid.open(_file, _chunkCacheBudget);
+			_grid = chunked;
+			_seed = chunked.getSeed();
+		} else if (MazeBinaryFile.isBinary(_file)) {
+			MazeBinaryFile binary = MazeBinaryFile.read(_file, _compact);
+			_grid = binary.getGrid();
+			_seed = binary.getSeed();
+		} else {
+			_grid = new MazeTextReader(_compact).read(_file);
+		}
+		checkCancelled();
+		_wallMask = LabyrinthModel.createWallMask(_grid);
+	}
+
+	@Override
+	protected void done() {
+		if (isCancelled()) {
+			LabyrinthModel.close(_grid);
+		} else if (getError() instanceof IOException) {
+			JOptionPane.showMessageDialog(null, "Could not load labyrinth: "
+					+ getError().getMessage());
+		} else if (getError() == null) {
+			_model.loaded(this);
+		} else {
+			super.done();
+		}
+		_model.jobEnded(this);
+	}
+
+	public Grid getGrid() {
+		return _grid;
+	}
+
+	/**
+	 * @return Seed the labyrinth was generated with or null if unknown
+	 */
+	public Long getSeed() {
+		return _seed;
+	}
+
+	/**
+	 * @return The wall masks of the grid or null if it gets none
+	 */
+	public WallMask getWallMask() {
+		return _wallMask;
+	}
+}
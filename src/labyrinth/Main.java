@@ -4,19 +4,23 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.io.IOException;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
+import javax.swing.ButtonGroup;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -26,10 +30,20 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JRadioButtonMenuItem;
+import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.Border;
 
+import labyrinth.ExitPiercer.EExitPlacement;
+import labyrinth.LabyrinthEvent.EChangeType;
+import labyrinth.MazeGenerator.EGeneratorType;
+import labyrinth.MazeSolver.ESolverType;
+
 /**
  * 
  * @author Sebastian Häni <haeni.sebastian@gmail.com>
@@ -42,45 +56,68 @@ public class Main extends JFrame {
 	private static final int WINDOW_WIDTH = 800;
 	private static final int WINDOW_HEIGHT = 800;
 
+	/**
+	 * Jobs which end within this many milliseconds show no progress.
+	 */
+	private static final int PROGRESS_DELAY = 250;
+	private static final int PROGRESS_INTERVAL = 100;
+	private static final int PROGRESS_STEPS = 1000;
+
 	private LabyrinthModel _labyrinthModel;
 	private LabyrinthPainter _labyrinthPainter;
-	private boolean _painting = false;
+	private JLabel _statusLabel;
+	private JPanel _progressPanel;
+	private JProgressBar _progressBar;
+	private final Timer _progressTimer = new Timer(PROGRESS_INTERVAL,
+			new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent event) {
+					updateProgress();
+				}
+			});
 
 	public Main(String mazeFile) {
+		this(mazeFile, null);
+	}
+
+	/**
+	 * @param mazeFile
+	 *            File to show or null to generate a random labyrinth
+	 * @param seed
+	 *            Seed of the random labyrinth or null for a random one
+	 */
+	public Main(String mazeFile, Long seed) {
 		setTitle("Labyrinth");
 		setSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
 		setExtendedState(getExtendedState() | JFrame.MAXIMIZED_BOTH);
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		setLocationRelativeTo(null);
 
-		_labyrinthModel = new LabyrinthModel(mazeFile);
+		if (mazeFile == null && seed != null) {
+			_labyrinthModel = new LabyrinthModel(seed);
+		} else {
+			_labyrinthModel = new LabyrinthModel(mazeFile);
+		}
 		createGui(mazeFile);
-
-		setVisible(true);
-
-		// Timer to repaint the labyrinth when another thread is changing it.
-		TimerTask task = new TimerTask() {
+		_labyrinthModel.addLabyrinthListener(new LabyrinthListener() {
 			@Override
-			public void run() {
-				if (!_painting && _labyrinthModel.isDirty()) {
-					_painting = true;
-					_labyrinthModel.setDirty(false);
-					_labyrinthPainter.repaint();
-					_painting = false;
+			public void labyrinthChanged(LabyrinthEvent event) {
+				// always fired on the event dispatch thread
+				if (event.getType() == EChangeType.JobChanged) {
+					jobChanged();
 				}
 			}
-		};
-		Timer timer = new Timer();
-		timer.scheduleAtFixedRate(task, 0, 50);
+		});
+		jobChanged();
+		updateStatus();
 
+		setVisible(true);
 	}
 
 	private void createGui(String mazeFile) {
-		createMenuBar();
-		final JPanel mainPanel = new JPanel();
-		mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.X_AXIS));
-
 		_labyrinthPainter = new LabyrinthPainter(_labyrinthModel);
+		createMenuBar();
+		final JScrollPane scrollPane = new JScrollPane(_labyrinthPainter);
 
 		_labyrinthPainter.addMouseMotionListener(new MouseMotionListener() {
 			@Override
@@ -115,20 +152,101 @@ public class Main extends JFrame {
 			}
 		});
 
-		mainPanel.add(_labyrinthPainter);
+		_labyrinthPainter.addMouseWheelListener(new MouseWheelListener() {
+			@Override
+			public void mouseWheelMoved(MouseWheelEvent event) {
+				if (event.isControlDown()) {
+					_labyrinthPainter.zoom(-event.getWheelRotation(),
+							event.getPoint());
+				} else {
+					// let the scroll pane scroll
+					scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(
+							_labyrinthPainter, event, scrollPane));
+				}
+			}
+		});
 
 		Border border = BorderFactory.createEmptyBorder(5, 5, 5, 5);
-		mainPanel.setBorder(border);
+		scrollPane.setViewportBorder(border);
+		scrollPane.setBorder(BorderFactory.createEmptyBorder());
+
+		add(scrollPane);
+
+		_statusLabel = new JLabel(" ");
+		_progressBar = new JProgressBar(0, PROGRESS_STEPS);
+		_progressBar.setStringPainted(true);
+		JButton cancel = new JButton("Cancel");
+		cancel.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent event) {
+				_labyrinthModel.cancelJob();
+			}
+		});
+
+		_progressPanel = new JPanel();
+		_progressPanel.setLayout(new BoxLayout(_progressPanel,
+				BoxLayout.LINE_AXIS));
+		_progressPanel.add(_progressBar);
+		_progressPanel.add(Box.createRigidArea(new Dimension(5, 0)));
+		_progressPanel.add(cancel);
+		_progressPanel.setVisible(false);
+
+		JPanel statusBar = new JPanel(new BorderLayout());
+		statusBar.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
+		statusBar.add(_statusLabel, BorderLayout.CENTER);
+		statusBar.add(_progressPanel, BorderLayout.EAST);
+		add(statusBar, BorderLayout.SOUTH);
+
+		_progressTimer.setInitialDelay(PROGRESS_DELAY);
+	}
+
+	/**
+	 * Shows the progress of a job which runs for a while, hides it when no
+	 * job runs anymore.
+	 */
+	private void jobChanged() {
+		if (_labyrinthModel.getJob() != null) {
+			_progressTimer.restart();
+		} else {
+			_progressTimer.stop();
+			_progressPanel.setVisible(false);
+			updateStatus();
+		}
+	}
 
-		add(mainPanel);
+	private void updateProgress() {
+		BackgroundJob job = _labyrinthModel.getJob();
+		if (job == null) {
+			return;
+		}
+		double progress = job.getProgress();
+		_progressBar.setIndeterminate(progress < 0);
+		_progressBar.setValue((int) Math.round(Math.max(0, progress)
+				* PROGRESS_STEPS));
+		_progressBar.setString(job.getName());
+		_progressPanel.setVisible(true);
+	}
+
+	/**
+	 * Shows how much work the last path search took and the seed of the
+	 * labyrinth.
+	 */
+	private void updateStatus() {
+		MazeSolver solver = _labyrinthModel.getSolver();
+		String status = String.format("%s: %d tiles expanded in %.2f ms",
+				solver.getType(), solver.getNodesExpanded(),
+				solver.getElapsedTime() / 1e6);
+		Long seed = _labyrinthModel.getSeed();
+		if (seed != null) {
+			status += String.format(" | Seed: %d", seed);
+		}
+		_statusLabel.setText(status);
 	}
 
 	/**
 	 * Yay, Spaghetti Code!
 	 */
 	private void createMenuBar() {
-		final JFrame frame = this;
-
 		JMenuBar bar = new JMenuBar();
 
 		JMenu menu = new JMenu("File");
@@ -137,7 +255,7 @@ public class Main extends JFrame {
 		JMenuItem open = new JMenuItem("Open");
 		open.setMnemonic(KeyEvent.VK_O);
 		open.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_O,
-				KeyEvent.CTRL_MASK));
+				InputEvent.CTRL_DOWN_MASK));
 		open.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
@@ -148,7 +266,7 @@ public class Main extends JFrame {
 		JMenuItem save = new JMenuItem("Save");
 		save.setMnemonic(KeyEvent.VK_S);
 		save.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S,
-				KeyEvent.CTRL_MASK));
+				InputEvent.CTRL_DOWN_MASK));
 		save.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
@@ -166,7 +284,7 @@ public class Main extends JFrame {
 				"Show outline", true);
 		showOutline.setMnemonic(KeyEvent.VK_O);
 		showOutline.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_L,
-				KeyEvent.CTRL_MASK));
+				InputEvent.CTRL_DOWN_MASK));
 		showOutline.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
@@ -179,7 +297,7 @@ public class Main extends JFrame {
 				"Fancy Graphics", true);
 		fancyGraphics.setMnemonic(KeyEvent.VK_F);
 		fancyGraphics.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F,
-				KeyEvent.CTRL_MASK));
+				InputEvent.CTRL_DOWN_MASK));
 		fancyGraphics.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
@@ -188,9 +306,39 @@ public class Main extends JFrame {
 		});
 		menu.add(fancyGraphics);
 
+		JMenuItem fitToWindow = new JMenuItem("Fit to window");
+		fitToWindow.setMnemonic(KeyEvent.VK_W);
+		fitToWindow.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_0,
+				InputEvent.CTRL_DOWN_MASK));
+		fitToWindow.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				_labyrinthPainter.fitToWindow();
+			}
+		});
+		menu.add(fitToWindow);
+
+		JMenu solverMenu = new JMenu("Solver");
+		solverMenu.setMnemonic(KeyEvent.VK_S);
+		ButtonGroup solverGroup = new ButtonGroup();
+		for (final ESolverType type : ESolverType.values()) {
+			JRadioButtonMenuItem item = new JRadioButtonMenuItem(
+					type.toString(), type == _labyrinthModel.getSolver()
+							.getType());
+			item.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent arg0) {
+					_labyrinthModel.setSolver(type.create());
+				}
+			});
+			solverGroup.add(item);
+			solverMenu.add(item);
+		}
+		menu.add(solverMenu);
+
 		final JDialog dialog = new JDialog(this, "Random labyrinth", true);
 		dialog.setResizable(false);
-		dialog.setSize(450, 80);
+		dialog.setSize(1100, 80);
 
 		JPanel dialogPanel = new JPanel(); // Flow layout will center button.
 		Border border = BorderFactory.createEmptyBorder(15, 15, 15, 15);
@@ -201,18 +349,65 @@ public class Main extends JFrame {
 		final JTextField widthTextfield = new JTextField("50");
 		JLabel heightLabel = new JLabel("Height:", JLabel.RIGHT);
 		final JTextField heightTextfield = new JTextField("50");
+		JLabel generatorLabel = new JLabel("Algorithm:", JLabel.RIGHT);
+		final JComboBox<EGeneratorType> generatorCombo = new JComboBox<>(
+				EGeneratorType.values());
+		JLabel exitsLabel = new JLabel("Exits:", JLabel.RIGHT);
+		final JTextField exitsTextfield = new JTextField("1");
+		final JComboBox<EExitPlacement> placementCombo = new JComboBox<>(
+				EExitPlacement.values());
+		JLabel seedLabel = new JLabel("Seed:", JLabel.RIGHT);
+		final JTextField seedTextfield = new JTextField(10);
+		seedTextfield.setToolTipText("Leave empty for a random labyrinth");
 		final JCheckBox checkbox = new JCheckBox("Show animation");
 
 		JButton btnRun = new JButton("Run");
 		btnRun.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent ev) {
+				long seed;
+				try {
+					String text = seedTextfield.getText().trim();
+					seed = text.isEmpty() ? MazeRandom.randomSeed() : Long
+							.parseLong(text);
+				} catch (NumberFormatException e) {
+					JOptionPane.showMessageDialog(dialog,
+							"The seed has to be a number!");
+					return;
+				}
+
+				int width;
+				int height;
+				int exits;
+				try {
+					width = Integer.parseInt(widthTextfield.getText().trim());
+					height = Integer
+							.parseInt(heightTextfield.getText().trim());
+					exits = Integer.parseInt(exitsTextfield.getText().trim());
+				} catch (NumberFormatException e) {
+					JOptionPane.showMessageDialog(dialog,
+							"Width, height and exits have to be numbers!");
+					return;
+				}
+				if (width < 1 || height < 1
+						|| (long) width * height > Integer.MAX_VALUE) {
+					JOptionPane.showMessageDialog(dialog, String.format(
+							"A labyrinth of %dx%d tiles is not possible!",
+							width, height));
+					return;
+				}
+
 				dialog.setVisible(false);
 				dialog.dispose();
 
-				_labyrinthModel.generateLabyrinth(
-						Integer.parseInt(widthTextfield.getText()),
-						Integer.parseInt(heightTextfield.getText()),
+				EGeneratorType type = (EGeneratorType) generatorCombo
+						.getSelectedItem();
+				_labyrinthModel.setGenerator(type.create());
+				_labyrinthModel.setExitPiercer(new ExitPiercer(Math.max(1,
+						exits), (EExitPlacement) placementCombo
+						.getSelectedItem()));
+				_labyrinthModel.generateLabyrinth(width, height, seed,
 						checkbox.isSelected());
+				updateStatus();
 			}
 		});
 
@@ -224,6 +419,20 @@ public class Main extends JFrame {
 		dialogPanel.add(Box.createRigidArea(new Dimension(5, 0)));
 		dialogPanel.add(heightTextfield, BorderLayout.WEST);
 		dialogPanel.add(Box.createRigidArea(new Dimension(15, 0)));
+		dialogPanel.add(generatorLabel, BorderLayout.EAST);
+		dialogPanel.add(Box.createRigidArea(new Dimension(5, 0)));
+		dialogPanel.add(generatorCombo);
+		dialogPanel.add(Box.createRigidArea(new Dimension(15, 0)));
+		dialogPanel.add(exitsLabel, BorderLayout.EAST);
+		dialogPanel.add(Box.createRigidArea(new Dimension(5, 0)));
+		dialogPanel.add(exitsTextfield, BorderLayout.WEST);
+		dialogPanel.add(Box.createRigidArea(new Dimension(5, 0)));
+		dialogPanel.add(placementCombo);
+		dialogPanel.add(Box.createRigidArea(new Dimension(15, 0)));
+		dialogPanel.add(seedLabel, BorderLayout.EAST);
+		dialogPanel.add(Box.createRigidArea(new Dimension(5, 0)));
+		dialogPanel.add(seedTextfield, BorderLayout.WEST);
+		dialogPanel.add(Box.createRigidArea(new Dimension(15, 0)));
 		dialogPanel.add(checkbox);
 		dialogPanel.add(Box.createRigidArea(new Dimension(15, 0)));
 		dialogPanel.add(btnRun);
@@ -234,16 +443,11 @@ public class Main extends JFrame {
 		JMenuItem generate = new JMenuItem("Generate random labyrinth");
 		generate.setMnemonic(KeyEvent.VK_G);
 		generate.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_G,
-				KeyEvent.CTRL_MASK));
+				InputEvent.CTRL_DOWN_MASK));
 
 		generate.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
-				if (_labyrinthModel.isGenerating()) {
-					JOptionPane.showMessageDialog(frame,
-							"Wait for running generation to finish!");
-					return;
-				}
 				dialog.setVisible(true);
 			}
 		});
@@ -257,9 +461,7 @@ public class Main extends JFrame {
 		JFileChooser chooser = new JFileChooser();
 
 		if (chooser.showDialog(this, "Open maze") == JFileChooser.APPROVE_OPTION) {
-			_labyrinthModel = new LabyrinthModel(chooser.getSelectedFile()
-					.getAbsolutePath());
-			_labyrinthPainter.setModel(_labyrinthModel);
+			_labyrinthModel.load(chooser.getSelectedFile());
 		}
 	}
 
@@ -267,7 +469,12 @@ public class Main extends JFrame {
 		JFileChooser chooser = new JFileChooser();
 
 		if (chooser.showDialog(this, "Save maze") == JFileChooser.APPROVE_OPTION) {
-			_labyrinthModel.save(chooser.getSelectedFile());
+			try {
+				_labyrinthModel.save(chooser.getSelectedFile());
+			} catch (IOException e) {
+				JOptionPane.showMessageDialog(this, "Could not save labyrinth: "
+						+ e.getMessage());
+			}
 		}
 	}
 }
@@ -0,0 +1,211 @@
+package labyrinth;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary file format for labyrinths. All numbers are big endian.
+ * 
+ * <pre>
+ * int     magic "MAZE"
+ * int     version
+ * int     width
+ * int     height
+ * byte    1 if a seed follows, 0 otherwise
+ * long    seed the labyrinth was generated with
+ * long[]  wall bits row by row, every row padded to whole words
+ * </pre>
+ * 
+ * The exits are not stored, they are the open border tiles of the grid.
+ * 
+ * Bit <code>x % 64</code> of the word <code>x / 64</code> of a row is set if
+ * there is a wall at column x, the same layout as
+ * {@link Grid#copyRow(int, long[])}. This needs an eighth of the space of a
+ * text file and is loaded without decoding characters.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class MazeBinaryFile {
+
+	public static final String EXTENSION = ".maze";
+
+	private static final int MAGIC = 0x4d415a45;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 25;
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final Grid _grid;
+	private final Long _seed;
+
+	/**
+	 * @param grid
+	 *            The labyrinth
+	 * @param seed
+	 *            Seed the labyrinth was generated with or null if unknown
+	 */
+	public MazeBinaryFile(Grid grid, Long seed) {
+		_grid = grid;
+		_seed = seed;
+	}
+
+	public Grid getGrid() {
+		return _grid;
+	}
+
+	/**
+	 * @return Seed the labyrinth was generated with or null if unknown
+	 */
+	public Long getSeed() {
+		return _seed;
+	}
+
+	/**
+	 * Checks if a file starts with the magic number of this format.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isBinary(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(4);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					return false;
+				}
+			}
+			return buffer.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * Reads a labyrinth.
+	 * 
+	 * @param file
+	 * @param compact
+	 *            If the grid should be stored bit-packed regardless of its size
+	 * @return
+	 * @throws IOException
+	 *             If the file cannot be read or is no valid labyrinth file
+	 */
+	public static MazeBinaryFile read(File file, boolean compact)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header);
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not a labyrinth file");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported labyrinth file version "
+						+ version);
+			}
+			int width = header.getInt();
+			int height = header.getInt();
+			if (width < 0 || height < 0
+					|| (long) width * height > Integer.MAX_VALUE) {
+				throw new IOException(String.format(
+						"Invalid labyrinth size %dx%d", width, height));
+			}
+			Long seed = header.get() != 0 ? header.getLong() : null;
+
+			Grid grid = Grid.create(width, height, compact);
+			readRows(channel, grid);
+			return new MazeBinaryFile(grid, seed);
+		}
+	}
+
+	/**
+	 * Writes the labyrinth, replacing the file if it exists.
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		AtomicFile.write(file, new AtomicFile.Content() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				MazeBinaryFile.this.write(out);
+			}
+		});
+	}
+
+	/**
+	 * Writes the labyrinth to a stream. The stream is not closed.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(OutputStream out) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(_grid.getWidth());
+		header.putInt(_grid.getHeight());
+		header.put((byte) (_seed != null ? 1 : 0));
+		header.putLong(_seed != null ? _seed : 0L);
+		out.write(header.array());
+
+		long[] words = new long[(_grid.getWidth() + 63) >>> 6];
+		ByteBuffer row = ByteBuffer.allocate(8 * words.length);
+		LongBuffer rowWords = row.asLongBuffer();
+		for (int y = 0; y < _grid.getHeight(); y++) {
+			_grid.copyRow(y, words);
+			rowWords.clear();
+			rowWords.put(words);
+			out.write(row.array());
+		}
+	}
+
+	/**
+	 * Reads the wall bits of all rows, as many rows at once as fit into the
+	 * buffer.
+	 * 
+	 * @param channel
+	 * @param grid
+	 * @throws IOException
+	 */
+	private static void readRows(FileChannel channel, Grid grid)
+			throws IOException {
+		int stride = (grid.getWidth() + 63) >>> 6;
+		if (stride == 0) {
+			return;
+		}
+		int rowsPerBuffer = Math.max(1, BUFFER_SIZE / (8 * stride));
+		ByteBuffer buffer = ByteBuffer.allocate(8 * stride * rowsPerBuffer);
+		long[] words = new long[stride];
+
+		for (int y = 0; y < grid.getHeight(); y += rowsPerBuffer) {
+			int rows = Math.min(rowsPerBuffer, grid.getHeight() - y);
+			buffer.clear();
+			buffer.limit(8 * stride * rows);
+			readFully(channel, buffer);
+
+			LongBuffer longs = buffer.asLongBuffer();
+			for (int row = 0; row < rows; row++) {
+				longs.get(words);
+				grid.setRow(y + row, words);
+			}
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("Labyrinth file is truncated");
+			}
+		}
+		buffer.flip();
+	}
+}
@@ -0,0 +1,79 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Strategy to carve a labyrinth out of a grid filled with walls. The border
+ * of the grid is left untouched, the exit is pierced afterwards.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public interface MazeGenerator {
+
+	/**
+	 * The available generation algorithms.
+	 */
+	public enum EGeneratorType {
+		DepthFirst("Depth first search"), Kruskal("Kruskal"), Prim("Prim"), Wilson(
+				"Wilson"), Eller("Eller"), BinaryTree("Binary tree"), Parallel(
+				"Parallel blocks");
+
+		private final String _label;
+
+		private EGeneratorType(String label) {
+			_label = label;
+		}
+
+		/**
+		 * @return A new generator of this type
+		 */
+		public MazeGenerator create() {
+			switch (this) {
+			case Kruskal:
+				return new KruskalGenerator();
+			case Prim:
+				return new PrimGenerator();
+			case Wilson:
+				return new WilsonGenerator();
+			case Eller:
+				return new EllerGenerator();
+			case BinaryTree:
+				return new BinaryTreeGenerator();
+			case Parallel:
+				return new ParallelGenerator();
+			default:
+				return new DepthFirstGenerator();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return _label;
+		}
+	}
+
+	/**
+	 * Gets informed about every tile which is carved out.
+	 */
+	public interface CarveListener {
+		void carved(int tile);
+	}
+
+	/**
+	 * Carves out the labyrinth.
+	 * 
+	 * @param grid
+	 *            Grid filled with walls, at least 3 tiles wide and high
+	 * @param random
+	 *            Source of all random decisions
+	 * @param listener
+	 *            Gets informed about every carved out tile
+	 */
+	void generate(Grid grid, Random random, CarveListener listener);
+
+	/**
+	 * @return Type of this generator
+	 */
+	EGeneratorType getType();
+}
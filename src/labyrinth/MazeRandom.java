@@ -0,0 +1,133 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Fast random generator for the labyrinth generation, implementing the
+ * xoshiro256** algorithm. The state is initialized from a single seed with
+ * splitmix64, so the same seed always produces the same labyrinth. Unlike
+ * {@link Random} it is not thread safe, instead independent generators for
+ * concurrent carvers can be split off.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class MazeRandom extends Random {
+
+	private static final long serialVersionUID = -2412339385271468406L;
+
+	private static final long[] JUMP = { 0x180ec6d33cfd0abaL,
+			0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL };
+
+	// not initialized here, the super constructor already calls setSeed
+	private long _s0;
+	private long _s1;
+	private long _s2;
+	private long _s3;
+
+	/**
+	 * @param seed
+	 *            Seed which determines all generated numbers
+	 */
+	public MazeRandom(long seed) {
+		super(seed);
+	}
+
+	private MazeRandom(long s0, long s1, long s2, long s3) {
+		super(0);
+		_s0 = s0;
+		_s1 = s1;
+		_s2 = s2;
+		_s3 = s3;
+	}
+
+	/**
+	 * @return A seed for a new labyrinth which differs from run to run
+	 */
+	public static long randomSeed() {
+		return new Random().nextLong();
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		_s0 = splitMix(seed += 0x9e3779b97f4a7c15L);
+		_s1 = splitMix(seed += 0x9e3779b97f4a7c15L);
+		_s2 = splitMix(seed += 0x9e3779b97f4a7c15L);
+		_s3 = splitMix(seed + 0x9e3779b97f4a7c15L);
+	}
+
+	/**
+	 * Splits off a generator for another thread. The new generator continues
+	 * with the current sequence while this one jumps 2^128 numbers ahead, so
+	 * the two sequences never overlap.
+	 * 
+	 * @return
+	 */
+	public MazeRandom split() {
+		MazeRandom split = new MazeRandom(_s0, _s1, _s2, _s3);
+		jump();
+		return split;
+	}
+
+	@Override
+	public long nextLong() {
+		long result = Long.rotateLeft(_s1 * 5, 7) * 9;
+		long t = _s1 << 17;
+		_s2 ^= _s0;
+		_s3 ^= _s1;
+		_s1 ^= _s2;
+		_s0 ^= _s3;
+		_s2 ^= t;
+		_s3 = Long.rotateLeft(_s3, 45);
+		return result;
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		// multiply and shift, rejecting the biased low products
+		long product = (nextLong() >>> 32) * bound;
+		if ((product & 0xffffffffL) < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			while ((product & 0xffffffffL) < threshold) {
+				product = (nextLong() >>> 32) * bound;
+			}
+		}
+		return (int) (product >>> 32);
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	private void jump() {
+		long s0 = 0;
+		long s1 = 0;
+		long s2 = 0;
+		long s3 = 0;
+		for (long jump : JUMP) {
+			for (int b = 0; b < 64; b++) {
+				if ((jump & (1L << b)) != 0) {
+					s0 ^= _s0;
+					s1 ^= _s1;
+					s2 ^= _s2;
+					s3 ^= _s3;
+				}
+				nextLong();
+			}
+		}
+		_s0 = s0;
+		_s1 = s1;
+		_s2 = s2;
+		_s3 = s3;
+	}
+
+	private static long splitMix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
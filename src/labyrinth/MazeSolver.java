@@ -0,0 +1,86 @@
+package labyrinth;
+
+/**
+ * Strategy to find the shortest path from a tile to the nearest exit.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public interface MazeSolver {
+
+	/**
+	 * The available solving strategies.
+	 */
+	public enum ESolverType {
+		DistanceField("Exit distance field"), BreadthFirst(
+				"Breadth first search"), AStar("A* search"), Bidirectional(
+				"Bidirectional search"), DeadEndFilling("Dead-end filling");
+
+		private final String _label;
+
+		private ESolverType(String label) {
+			_label = label;
+		}
+
+		/**
+		 * @return A new solver of this type
+		 */
+		public MazeSolver create() {
+			switch (this) {
+			case DistanceField:
+				return new DistanceFieldSolver();
+			case AStar:
+				return new AStarSolver();
+			case Bidirectional:
+				return new BidirectionalSolver();
+			case DeadEndFilling:
+				return new DeadEndFillingSolver();
+			default:
+				return new BreadthFirstSolver();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return _label;
+		}
+	}
+
+	/**
+	 * Searches the shortest path from the starter tile to the nearest exit.
+	 * 
+	 * @param grid
+	 *            The labyrinth
+	 * @param start
+	 *            Index of the starter tile
+	 * @return Indexes of the tiles on the path, starting with the starter tile
+	 *         and ending with the exit, or null if no exit can be reached
+	 */
+	int[] solve(Grid grid, int start);
+
+	/**
+	 * Informs the solver that a single tile was toggled between wall and
+	 * empty, so it can update data it keeps between searches.
+	 * 
+	 * @param grid
+	 *            The labyrinth
+	 * @param tile
+	 *            Index of the toggled tile
+	 */
+	void tileToggled(Grid grid, int tile);
+
+	/**
+	 * @return Type of this solver
+	 */
+	ESolverType getType();
+
+	/**
+	 * @return Number of tiles expanded by the last search
+	 */
+	long getNodesExpanded();
+
+	/**
+	 * @return Duration of the last search in nanoseconds
+	 */
+	long getElapsedTime();
+}
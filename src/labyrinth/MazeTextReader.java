@@ -0,0 +1,439 @@
+package labyrinth;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a labyrinth from a text file with one character per tile. The file
+ * is memory mapped and decoded row by row without creating objects per
+ * character. Only a bit-packed grid, which is used if it is compact or
+ * larger than {@link Grid#COMPACT_THRESHOLD}, avoids objects per tile too.
+ * <code>#</code>, <code>|</code> and
+ * <code>*</code> are walls, every other character is empty. Lines end with
+ * <code>\n</code>, <code>\r\n</code> or <code>\r</code> and must all be as
+ * long as the first one; empty lines at the end of the file are ignored.
+ * <p>
+ * The file is split into chunks at line boundaries which are decoded
+ * concurrently, as every line is an independent row of the grid.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class MazeTextReader {
+
+	/**
+	 * Upper bound of a chunk, a single mapping is limited to 2 GB.
+	 */
+	private static final int MAX_CHUNK_SIZE = 1 << 30;
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_REPORTED_ROWS = 5;
+
+	/**
+	 * 1 for the wall characters, 0 for all others. Same mapping as
+	 * {@link Tile#typeOf(char)}.
+	 */
+	private static final long[] WALLS = new long[256];
+
+	static {
+		WALLS['#'] = 1;
+		WALLS['|'] = 1;
+		WALLS['*'] = 1;
+	}
+
+	private final boolean _compact;
+
+	/**
+	 * @param compact
+	 *            If the grid should be stored bit-packed regardless of its size
+	 */
+	public MazeTextReader(boolean compact) {
+		_compact = compact;
+	}
+
+	/**
+	 * Reads the labyrinth. A first pass over the chunks counts the lines, the
+	 * second pass decodes the tiles.
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 *             If the file cannot be read or the rows differ in width
+	 */
+	public Grid read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			List<Chunk> chunks = split(channel, contentSize(channel));
+			ForkJoinPool pool = new ForkJoinPool();
+			try {
+				List<Callable<Void>> tasks = new ArrayList<>();
+				for (Chunk chunk : chunks) {
+					tasks.add(chunk.count(channel));
+				}
+				invokeAll(pool, tasks);
+
+				int width = chunks.isEmpty() ? 0 : chunks.get(0)._firstLength;
+				long height = 0;
+				for (Chunk chunk : chunks) {
+					chunk._firstRow = (int) height;
+					height += chunk._rows;
+				}
+				if (width == 0 || height == 0) {
+					throw new IOException("The file contains no labyrinth");
+				}
+				if (height > Integer.MAX_VALUE) {
+					throw new IOException("Labyrinth has too many rows");
+				}
+
+				Grid grid = Grid.create(width, (int) height, _compact);
+				tasks.clear();
+				for (Chunk chunk : chunks) {
+					tasks.add(chunk.decode(channel, grid));
+				}
+				invokeAll(pool, tasks);
+
+				checkWidths(chunks, width);
+				return grid;
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Determines the size of the file without the line separators at its end.
+	 * 
+	 * @param channel
+	 * @return
+	 * @throws IOException
+	 */
+	private long contentSize(FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		long size = channel.size();
+		while (size > 0) {
+			buffer.clear();
+			long from = Math.max(0, size - BUFFER_SIZE);
+			buffer.limit((int) (size - from));
+			readFully(channel, buffer, from);
+			for (int i = buffer.limit() - 1; i >= 0; i--, size--) {
+				byte b = buffer.get(i);
+				if (b != '\n' && b != '\r') {
+					return size;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Splits the file into chunks which end right after a line feed, so a
+	 * chunk always starts with a new line.
+	 * 
+	 * @param channel
+	 * @param size
+	 *            Number of bytes to split
+	 * @return
+	 * @throws IOException
+	 */
+	private List<Chunk> split(FileChannel channel, long size)
+			throws IOException {
+		int parallelism = Runtime.getRuntime().availableProcessors() * 4;
+		long chunkSize = Math.max(MIN_CHUNK_SIZE,
+				Math.min(MAX_CHUNK_SIZE, size / parallelism + 1));
+
+		List<Chunk> chunks = new ArrayList<>();
+		long from = 0;
+		while (from < size) {
+			long to = size;
+			if (size - from > chunkSize) {
+				to = nextLine(channel, from + chunkSize, size);
+				if (to - from > MAX_CHUNK_SIZE) {
+					throw new IOException("Lines longer than "
+							+ MAX_CHUNK_SIZE + " bytes are not supported");
+				}
+			}
+			chunks.add(new Chunk(from, to));
+			from = to;
+		}
+		return chunks;
+	}
+
+	/**
+	 * Searches the start of the next line.
+	 * 
+	 * @param channel
+	 * @param position
+	 *            Where to start searching
+	 * @param size
+	 * @return Position after the next line feed or size if there is none
+	 * @throws IOException
+	 */
+	private long nextLine(FileChannel channel, long position, long size)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		while (position < size) {
+			buffer.clear();
+			buffer.limit((int) Math.min(BUFFER_SIZE, size - position));
+			readFully(channel, buffer, position);
+			for (int i = 0; i < buffer.limit(); i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += buffer.limit();
+		}
+		return size;
+	}
+
+	private void readFully(FileChannel channel, ByteBuffer buffer,
+			long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+	/**
+	 * Reports the first rows which are not as wide as the first row.
+	 * 
+	 * @param chunks
+	 * @param width
+	 * @throws IOException
+	 */
+	private void checkWidths(List<Chunk> chunks, int width) throws IOException {
+		StringBuilder rows = new StringBuilder();
+		long count = 0;
+		for (Chunk chunk : chunks) {
+			int reported = Math.min(chunk._ragged, MAX_REPORTED_ROWS);
+			for (int i = 0; i < reported && count + i < MAX_REPORTED_ROWS; i++) {
+				rows.append(String.format("%nRow %d has %d tiles",
+						chunk._raggedRows[i] + 1, chunk._raggedLengths[i]));
+			}
+			count += chunk._ragged;
+		}
+		if (count > MAX_REPORTED_ROWS) {
+			rows.append(String.format("%n... and %d more",
+					count - MAX_REPORTED_ROWS));
+		}
+		if (count > 0) {
+			throw new IOException(String.format(
+					"All rows must have %d tiles like the first one:%s", width,
+					rows));
+		}
+	}
+
+	private static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks)
+			throws IOException {
+		try {
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * A part of the file consisting of whole lines.
+	 */
+	private static class Chunk {
+		private final long _from;
+		private final long _to;
+		private int _firstRow;
+		private int _rows;
+		private int _firstLength;
+		private int _ragged;
+		private final int[] _raggedRows = new int[MAX_REPORTED_ROWS];
+		private final int[] _raggedLengths = new int[MAX_REPORTED_ROWS];
+
+		public Chunk(long from, long to) {
+			_from = from;
+			_to = to;
+		}
+
+		/**
+		 * @param channel
+		 * @return Task counting the lines of this chunk
+		 */
+		public Callable<Void> count(final FileChannel channel) {
+			return new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					scan(channel, new LineHandler() {
+						@Override
+						public void tiles(int row, int column, byte[] buffer,
+								int from, int to) {
+						}
+
+						@Override
+						public void endLine(int row, int length) {
+							if (row == 0) {
+								_firstLength = length;
+							}
+							_rows = row + 1;
+						}
+					});
+					return null;
+				}
+			};
+		}
+
+		/**
+		 * @param channel
+		 * @param grid
+		 *            Receives the rows, sized by the counting pass
+		 * @return Task decoding the lines of this chunk
+		 */
+		public Callable<Void> decode(final FileChannel channel, final Grid grid) {
+			return new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					scan(channel, new Decoder(grid, Chunk.this));
+					return null;
+				}
+			};
+		}
+
+		/**
+		 * Feeds the lines of this chunk to a line handler.
+		 * 
+		 * @param channel
+		 * @param handler
+		 * @throws IOException
+		 */
+		private void scan(FileChannel channel, LineHandler handler)
+				throws IOException {
+			MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, _from, _to
+					- _from);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int row = 0;
+			int column = 0;
+			boolean carriageReturn = false;
+
+			while (mapped.hasRemaining()) {
+				int length = Math.min(buffer.length, mapped.remaining());
+				mapped.get(buffer, 0, length);
+
+				int start = 0;
+				for (int i = 0; i < length; i++) {
+					byte b = buffer[i];
+					if (b != '\n' && b != '\r') {
+						continue;
+					}
+					if (i > start) {
+						handler.tiles(row, column, buffer, start, i);
+						column += i - start;
+						carriageReturn = false;
+					}
+					start = i + 1;
+					if (b == '\n' && carriageReturn) {
+						carriageReturn = false;
+					} else {
+						handler.endLine(row++, column);
+						column = 0;
+						carriageReturn = b == '\r';
+					}
+				}
+				if (length > start) {
+					handler.tiles(row, column, buffer, start, length);
+					column += length - start;
+					carriageReturn = false;
+				}
+			}
+
+			// last line without line separator
+			if (column > 0) {
+				handler.endLine(row, column);
+			}
+		}
+	}
+
+	/**
+	 * Receives the tiles of a chunk line by line.
+	 */
+	private interface LineHandler {
+		/**
+		 * Receives a part of a line.
+		 * 
+		 * @param row
+		 *            Row within the chunk
+		 * @param column
+		 *            Column of the first tile
+		 * @param buffer
+		 *            Contains the tiles
+		 * @param from
+		 *            Position of the first tile in the buffer
+		 * @param to
+		 *            Position after the last tile in the buffer
+		 */
+		void tiles(int row, int column, byte[] buffer, int from, int to);
+
+		void endLine(int row, int length);
+	}
+
+	/**
+	 * Collects the wall bits of a line and stores them as a row of the grid.
+	 * Lines with another width than the grid are remembered in the chunk.
+	 */
+	private static class Decoder implements LineHandler {
+		private final Grid _grid;
+		private final Chunk _chunk;
+		private final long[] _words;
+		private final int _width;
+
+		public Decoder(Grid grid, Chunk chunk) {
+			_grid = grid;
+			_chunk = chunk;
+			_width = grid.getWidth();
+			_words = new long[(_width + 63) >>> 6];
+		}
+
+		@Override
+		public void tiles(int row, int column, byte[] buffer, int from, int to) {
+			to = Math.min(to, from + _width - column);
+			for (int i = from; i < to; i++, column++) {
+				_words[column >>> 6] |= WALLS[buffer[i] & 0xff] << column;
+			}
+		}
+
+		@Override
+		public void endLine(int row, int length) {
+			if (length != _width) {
+				int ragged = _chunk._ragged++;
+				if (ragged < MAX_REPORTED_ROWS) {
+					_chunk._raggedRows[ragged] = _chunk._firstRow + row;
+					_chunk._raggedLengths[ragged] = length;
+				}
+			}
+			_grid.setRow(_chunk._firstRow + row, _words);
+			for (int i = 0; i < _words.length; i++) {
+				_words[i] = 0L;
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package labyrinth;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a labyrinth as text file with one character per tile,
+ * <code>#</code> for walls and <code>.</code> for empty tiles. Files are
+ * replaced through an {@link AtomicFile}, so an existing file is never left
+ * half written.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class MazeTextWriter {
+
+	private static final byte WALL = '#';
+	private static final byte EMPTY = '.';
+
+	private final byte[] _lineSeparator = System.lineSeparator().getBytes();
+
+	/**
+	 * Writes the labyrinth to a file, replacing it if it exists.
+	 * 
+	 * @param grid
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(final Grid grid, File file) throws IOException {
+		AtomicFile.write(file, new AtomicFile.Content() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				MazeTextWriter.this.write(grid, out);
+			}
+		});
+	}
+
+	/**
+	 * Writes the labyrinth to a stream row by row. The stream is not closed.
+	 * 
+	 * @param grid
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Grid grid, OutputStream out) throws IOException {
+		int width = grid.getWidth();
+		long[] words = new long[(width + 63) >>> 6];
+		byte[] line = new byte[width + _lineSeparator.length];
+		System.arraycopy(_lineSeparator, 0, line, width, _lineSeparator.length);
+
+		for (int y = 0; y < grid.getHeight(); y++) {
+			grid.copyRow(y, words);
+			for (int x = 0; x < width; x++) {
+				line[x] = (words[x >>> 6] & (1L << x)) != 0 ? WALL : EMPTY;
+			}
+			out.write(line);
+		}
+	}
+}
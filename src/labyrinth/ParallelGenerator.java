@@ -0,0 +1,249 @@
+package labyrinth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the labyrinth on all cores. The lattice of cells is split into
+ * square blocks which are carved concurrently with a randomized depth first
+ * search each. Afterwards the blocks are stitched together: a random spanning
+ * tree over the blocks is chosen and for every edge of the tree one wall on
+ * the seam between the two blocks is carved out, so the labyrinth stays
+ * perfect.
+ * <p>
+ * The blocks are only carved concurrently in a {@link BitGrid}. A block spans
+ * 128 tiles, so two blocks never write to the same word, and the writes are
+ * not counted by the grid until all blocks are done. Other grids are carved
+ * block by block, which gives the same labyrinth.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class ParallelGenerator extends LatticeGenerator {
+
+	/**
+	 * Width and height of a block in cells.
+	 */
+	private static final int BLOCK_CELLS = 64;
+
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	private int _blockColumns;
+	private int _blockRows;
+	private BitGrid _bits;
+
+	@Override
+	public EGeneratorType getType() {
+		return EGeneratorType.Parallel;
+	}
+
+	@Override
+	protected void generate(Random random) {
+		_blockColumns = (_columns + BLOCK_CELLS - 1) / BLOCK_CELLS;
+		_blockRows = (_rows + BLOCK_CELLS - 1) / BLOCK_CELLS;
+
+		carveBlocks(random);
+		stitchBlocks(random);
+	}
+
+	@Override
+	protected void carveTile(int tile) {
+		if (_bits != null) {
+			_bits.carveUncounted(tile);
+		} else {
+			super.carveTile(tile);
+		}
+	}
+
+	/**
+	 * Carves all blocks concurrently, every block with its own random
+	 * generator split off the given one, so the result only depends on the
+	 * seed and not on the scheduling.
+	 * 
+	 * @param random
+	 */
+	private void carveBlocks(Random random) {
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int row = 0; row < _blockRows; row++) {
+			for (int column = 0; column < _blockColumns; column++) {
+				final int blockColumn = column;
+				final int blockRow = row;
+				final Random blockRandom = random instanceof MazeRandom ? ((MazeRandom) random)
+						.split() : new Random(random.nextLong());
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						carveBlock(blockColumn, blockRow, blockRandom);
+						return null;
+					}
+				});
+			}
+		}
+
+		if (!(_grid instanceof BitGrid)) {
+			for (Callable<Void> task : tasks) {
+				try {
+					task.call();
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return;
+		}
+
+		_bits = (BitGrid) _grid;
+		try {
+			for (Future<Void> future : POOL.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			// never stitch blocks which are only partly carved
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Generation interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			_bits = null;
+			_grid.wallsChanged();
+		}
+	}
+
+	/**
+	 * Carves a single block with a randomized depth first search over its
+	 * cells. A cell counts as visited once its tile is carved out.
+	 * 
+	 * @param blockColumn
+	 * @param blockRow
+	 * @param random
+	 */
+	private void carveBlock(int blockColumn, int blockRow, Random random) {
+		int left = blockColumn * BLOCK_CELLS;
+		int top = blockRow * BLOCK_CELLS;
+		int right = Math.min(left + BLOCK_CELLS, _columns);
+		int bottom = Math.min(top + BLOCK_CELLS, _rows);
+
+		IntStack stack = new IntStack();
+		int[] neighbors = new int[4];
+		int start = cell(left + random.nextInt(right - left),
+				top + random.nextInt(bottom - top));
+		carveCell(start);
+		stack.push(start);
+
+		while (!stack.isEmpty()) {
+			int cell = stack.peek();
+			int column = cell % _columns;
+			int row = cell / _columns;
+
+			int count = 0;
+			if (column > left && !isCarved(cell - 1)) {
+				neighbors[count++] = cell - 1;
+			}
+			if (row > top && !isCarved(cell - _columns)) {
+				neighbors[count++] = cell - _columns;
+			}
+			if (column < right - 1 && !isCarved(cell + 1)) {
+				neighbors[count++] = cell + 1;
+			}
+			if (row < bottom - 1 && !isCarved(cell + _columns)) {
+				neighbors[count++] = cell + _columns;
+			}
+
+			if (count == 0) {
+				stack.pop();
+				continue;
+			}
+
+			int next = neighbors[random.nextInt(count)];
+			carvePassage(cell, next);
+			stack.push(next);
+		}
+	}
+
+	/**
+	 * Connects the blocks along a random spanning tree over the blocks with
+	 * one passage through the seam per tree edge.
+	 * 
+	 * @param random
+	 */
+	private void stitchBlocks(Random random) {
+		int blocks = _blockColumns * _blockRows;
+		int[] parent = new int[blocks];
+		for (int block = 0; block < blocks; block++) {
+			parent[block] = block;
+		}
+
+		// edge 2 * block leads to the right neighbor, 2 * block + 1 downwards
+		int[] edges = new int[2 * blocks];
+		int count = 0;
+		for (int row = 0; row < _blockRows; row++) {
+			for (int column = 0; column < _blockColumns; column++) {
+				int block = row * _blockColumns + column;
+				if (column < _blockColumns - 1) {
+					edges[count++] = 2 * block;
+				}
+				if (row < _blockRows - 1) {
+					edges[count++] = 2 * block + 1;
+				}
+			}
+		}
+
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = edges[i];
+			edges[i] = edges[j];
+			edges[j] = swap;
+		}
+
+		for (int i = 0; i < count; i++) {
+			int block = edges[i] >>> 1;
+			boolean right = (edges[i] & 1) == 0;
+			int a = find(parent, block);
+			int b = find(parent, right ? block + 1 : block + _blockColumns);
+			if (a == b) {
+				continue;
+			}
+			parent[a] = b;
+
+			int left = (block % _blockColumns) * BLOCK_CELLS;
+			int top = (block / _blockColumns) * BLOCK_CELLS;
+			if (right) {
+				int row = top + random.nextInt(Math.min(BLOCK_CELLS, _rows - top));
+				int cell = cell(left + BLOCK_CELLS - 1, row);
+				carvePassage(cell, cell + 1);
+			} else {
+				int column = left
+						+ random.nextInt(Math.min(BLOCK_CELLS, _columns - left));
+				int cell = cell(column, top + BLOCK_CELLS - 1);
+				carvePassage(cell, cell + _columns);
+			}
+		}
+	}
+
+	private boolean isCarved(int cell) {
+		return !_grid.isWall(_grid.index(2 * (cell % _columns) + 1,
+				2 * (cell / _columns) + 1));
+	}
+
+	private static int find(int[] parent, int block) {
+		while (parent[block] != block) {
+			parent[block] = parent[parent[block]];
+			block = parent[block];
+		}
+		return block;
+	}
+}
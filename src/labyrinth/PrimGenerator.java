@@ -0,0 +1,63 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Randomized Prim algorithm. The labyrinth grows from a random cell: a random
+ * cell of the frontier around it is connected to a random neighbor already in
+ * the labyrinth, and its own neighbors join the frontier.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class PrimGenerator extends LatticeGenerator {
+
+	private static final byte OUTSIDE = 0;
+	private static final byte FRONTIER = 1;
+	private static final byte INSIDE = 2;
+
+	@Override
+	public EGeneratorType getType() {
+		return EGeneratorType.Prim;
+	}
+
+	@Override
+	protected void generate(Random random) {
+		int cells = _columns * _rows;
+		byte[] state = new byte[cells];
+		int[] frontier = new int[cells];
+		int size = 0;
+		int[] neighbors = new int[4];
+		int[] inside = new int[4];
+
+		int start = random.nextInt(cells);
+		state[start] = INSIDE;
+		carveCell(start);
+		int count = getNeighbors(start, neighbors);
+		for (int i = 0; i < count; i++) {
+			state[neighbors[i]] = FRONTIER;
+			frontier[size++] = neighbors[i];
+		}
+
+		while (size > 0) {
+			int pick = random.nextInt(size);
+			int cell = frontier[pick];
+			frontier[pick] = frontier[--size];
+
+			int insideCount = 0;
+			count = getNeighbors(cell, neighbors);
+			for (int i = 0; i < count; i++) {
+				int neighbor = neighbors[i];
+				if (state[neighbor] == INSIDE) {
+					inside[insideCount++] = neighbor;
+				} else if (state[neighbor] == OUTSIDE) {
+					state[neighbor] = FRONTIER;
+					frontier[size++] = neighbor;
+				}
+			}
+
+			state[cell] = INSIDE;
+			carvePassage(inside[random.nextInt(insideCount)], cell);
+		}
+	}
+}
@@ -1,5 +1,10 @@
 package labyrinth;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 
  * @author Sebastian Häni <haeni.sebastian@gmail.com>
@@ -7,10 +12,60 @@ package labyrinth;
  */
 public class Program {
 	public static void main(String[] args) {
-		if (args.length >= 1) {
-			new Main(args[0]);
+		Long seed = null;
+		List<String> arguments = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--seed") && i + 1 < args.length) {
+				seed = parseSeed(args[++i]);
+			} else {
+				arguments.add(args[i]);
+			}
+		}
+
+		if (arguments.size() >= 1 && arguments.get(0).equals("--stream")) {
+			stream(arguments, seed);
+		} else if (arguments.size() >= 1) {
+			new Main(arguments.get(0), seed);
 		} else {
-			new Main(null);
+			new Main(null, seed);
+		}
+	}
+
+	private static long parseSeed(String seed) {
+		try {
+			return Long.parseLong(seed);
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid seed: " + seed);
+			System.exit(1);
+			return 0;
+		}
+	}
+
+	/**
+	 * Writes a random labyrinth directly to a file without showing it.
+	 * 
+	 * @param args
+	 *            --stream width height file
+	 * @param seed
+	 *            Seed of the labyrinth or null for a random one
+	 */
+	private static void stream(List<String> args, Long seed) {
+		if (args.size() != 4) {
+			System.err
+					.println("Usage: --stream <width> <height> <file> [--seed <seed>]");
+			System.exit(1);
+		}
+
+		try {
+			int width = Integer.parseInt(args.get(1));
+			int height = Integer.parseInt(args.get(2));
+			long actualSeed = seed != null ? seed : MazeRandom.randomSeed();
+			new EllerStreamWriter(width, height, new MazeRandom(actualSeed))
+					.write(new File(args.get(3)));
+			System.out.println("Seed: " + actualSeed);
+		} catch (IllegalArgumentException | IOException e) {
+			System.err.println("Could not write labyrinth: " + e.getMessage());
+			System.exit(1);
 		}
 	}
 }
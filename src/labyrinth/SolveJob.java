@@ -0,0 +1,65 @@
+package labyrinth;
+
+/**
+ * Searches the shortest path from a tile to the nearest exit in the
+ * background. The progress is the number of expanded tiles.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class SolveJob extends BackgroundJob {
+
+	/**
+	 * Held while a search runs, whichever solver and grid it uses. Searches
+	 * which were cancelled may still run for a moment, the walls and the
+	 * solvers must only be changed while holding it.
+	 */
+	static final Object LOCK = new Object();
+
+	private final LabyrinthModel _model;
+	private final MazeSolver _solver;
+	private final Grid _grid;
+	private final int _start;
+	private int[] _path;
+
+	/**
+	 * @param model
+	 *            Gets the path when it is found
+	 * @param solver
+	 *            Strategy to find the path
+	 * @param grid
+	 * @param start
+	 *            Index of the starter tile
+	 */
+	public SolveJob(LabyrinthModel model, MazeSolver solver, Grid grid,
+			int start) {
+		super("Searching path");
+		_model = model;
+		_solver = solver;
+		_grid = grid;
+		_start = start;
+		// about half the tiles of a labyrinth are empty
+		setTotal(grid.size() / 2);
+	}
+
+	@Override
+	protected void execute() {
+		synchronized (LOCK) {
+			checkCancelled();
+			_path = _solver.solve(_grid, _start);
+		}
+	}
+
+	@Override
+	protected void done() {
+		if (!isCancelled() && getError() == null) {
+			_model.pathFound(this, _start, _path);
+		}
+		super.done();
+		_model.jobEnded(this);
+	}
+
+	public Grid getGrid() {
+		return _grid;
+	}
+}
@@ -20,28 +20,35 @@ public class Tile {
 
 	public Tile(Coordinate coordinate, char c) {
 		_coordinate = coordinate;
+		_type = typeOf(c);
+	}
+
+	public Tile(Coordinate coordinate, ETileType type) {
+		_coordinate = coordinate;
+		_type = type;
+	}
 
+	/**
+	 * Determines the tile type a character in a maze file stands for.
+	 * 
+	 * @param c
+	 * @return
+	 */
+	public static ETileType typeOf(char c) {
 		switch (c) {
 		case '#':
 		case '|':
 		case '*':
-			_type = ETileType.Wall;
-			break;
+			return ETileType.Wall;
 		case ' ':
 		case '.':
 		case '_':
-			_type = ETileType.Empty;
-			break;
+			return ETileType.Empty;
 		default:
-			_type = ETileType.Empty;
+			return ETileType.Empty;
 		}
 	}
 
-	public Tile(Coordinate coordinate, ETileType type) {
-		_coordinate = coordinate;
-		_type = type;
-	}
-
 	public ETileType getType() {
 		return _type;
 	}
@@ -50,67 +57,6 @@ public class Tile {
 		return _coordinate;
 	}
 
-	public Tile getNeighborLeft(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX() - 1,
-				getCoordinate().getY()), tiles);
-	}
-
-	public Tile getNeighborTop(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX(),
-				getCoordinate().getY() - 1), tiles);
-	}
-
-	public Tile getNeighborRight(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX() + 1,
-				getCoordinate().getY()), tiles);
-	}
-
-	public Tile getNeighborBottom(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX(),
-				getCoordinate().getY() + 1), tiles);
-	}
-
-	public Tile getNeighborTopLeft(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX() - 1,
-				getCoordinate().getY() - 1), tiles);
-	}
-
-	public Tile getNeighborTopRight(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX() + 1,
-				getCoordinate().getY() - 1), tiles);
-	}
-
-	public Tile getNeighborBottomRight(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX() + 1,
-				getCoordinate().getY() + 1), tiles);
-	}
-
-	public Tile getNeighborBottomLeft(ArrayList<Tile> tiles) {
-		return searchTile(new Coordinate(getCoordinate().getX() - 1,
-				getCoordinate().getY() + 1), tiles);
-	}
-
-	/**
-	 * Searches and returns the tile at the given coordinate.
-	 * 
-	 * @param coordinate
-	 * @param tiles
-	 * @return
-	 */
-	private Tile searchTile(Coordinate coordinate, ArrayList<Tile> tiles) {
-		if (!coordinate.isValid()) {
-			return new Tile(coordinate, ETileType.Empty);
-		}
-
-		for (Tile tile : tiles) {
-			if (tile.getCoordinate().equals(coordinate)) {
-				return tile;
-			}
-		}
-
-		return new Tile(coordinate, ETileType.Empty);
-	}
-
 	public void setType(ETileType type) {
 		_type = type;
 	}
@@ -176,22 +122,8 @@ public class Tile {
 	 * @param type
 	 * @return
 	 */
-	public ArrayList<Tile> getNeighbors(ArrayList<Tile> tiles, ETileType type) {
-		ArrayList<Tile> neighbors = new ArrayList<>();
-
-		for (Tile tile : tiles) {
-
-			if (tile.equals(this) || tile.getType() != type) {
-				continue;
-			}
-
-			if (isNeighbor(tile)) {
-				neighbors.add(tile);
-			}
-
-		}
-
-		return neighbors;
+	public ArrayList<Tile> getNeighbors(TileGrid tiles, ETileType type) {
+		return tiles.getNeighbors(this, type);
 	}
 
 }
@@ -0,0 +1,178 @@
+package labyrinth;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import labyrinth.Tile.ETileType;
+
+/**
+ * Stores the tiles of a labyrinth as objects in a flat array indexed by
+ * <code>y * width + x</code>, so a tile and its neighbors can be looked up in
+ * constant time.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class TileGrid extends Grid implements Iterable<Tile> {
+
+	private final Tile[] _tiles;
+
+	/**
+	 * Creates a grid completely filled with wall tiles.
+	 * 
+	 * @param width
+	 *            Width in tiles
+	 * @param height
+	 *            Height in tiles
+	 */
+	public TileGrid(int width, int height) {
+		super(width, height);
+		_tiles = new Tile[width * height];
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				_tiles[index(x, y)] = new Tile(new Coordinate(x, y),
+						ETileType.Wall);
+			}
+		}
+	}
+
+	/**
+	 * @param index
+	 *            Position in the flat tile array
+	 * @return The tile at the given index
+	 */
+	public Tile get(int index) {
+		return _tiles[index];
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return The tile at the given coordinate or null if it lies outside the
+	 *         grid.
+	 */
+	public Tile get(int x, int y) {
+		if (!contains(x, y)) {
+			return null;
+		}
+		return _tiles[index(x, y)];
+	}
+
+	/**
+	 * Replaces the tile at the given coordinate.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param tile
+	 */
+	public void set(int x, int y, Tile tile) {
+		_tiles[index(x, y)] = tile;
+	}
+
+	@Override
+	public Grid copy() {
+		TileGrid copy = new TileGrid(_width, _height);
+		for (int i = 0; i < _tiles.length; i++) {
+			Tile tile = copy._tiles[i];
+			tile.setType(_tiles[i].getType());
+			tile.setStart(_tiles[i].isStart());
+			tile.setPath(_tiles[i].isPath());
+		}
+		return copy;
+	}
+
+	@Override
+	public boolean isWall(int index) {
+		return _tiles[index].getType() == ETileType.Wall;
+	}
+
+	@Override
+	public void setWall(int index, boolean wall) {
+		_tiles[index].setType(wall ? ETileType.Wall : ETileType.Empty);
+		_modCount++;
+	}
+
+	@Override
+	public boolean isStart(int index) {
+		return _tiles[index].isStart();
+	}
+
+	@Override
+	public void setStart(int index, boolean start) {
+		_tiles[index].setStart(start);
+	}
+
+	@Override
+	public boolean isPath(int index) {
+		return _tiles[index].isPath();
+	}
+
+	@Override
+	public void setPath(int index, boolean path) {
+		_tiles[index].setPath(path);
+	}
+
+	@Override
+	public void clearMarks() {
+		for (Tile tile : _tiles) {
+			tile.setStart(false);
+			tile.setPath(false);
+		}
+	}
+
+	/**
+	 * Creates a list with the horizontal and vertical neighbors of a tile
+	 * which are of the given type.
+	 * 
+	 * @param tile
+	 * @param type
+	 * @return
+	 */
+	public ArrayList<Tile> getNeighbors(Tile tile, ETileType type) {
+		ArrayList<Tile> neighbors = new ArrayList<>(4);
+		int x = tile.getCoordinate().getX();
+		int y = tile.getCoordinate().getY();
+
+		addNeighbor(neighbors, x - 1, y, type);
+		addNeighbor(neighbors, x, y - 1, type);
+		addNeighbor(neighbors, x + 1, y, type);
+		addNeighbor(neighbors, x, y + 1, type);
+
+		return neighbors;
+	}
+
+	@Override
+	public Iterator<Tile> iterator() {
+		return new Iterator<Tile>() {
+			private int _next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _next < _tiles.length;
+			}
+
+			@Override
+			public Tile next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return _tiles[_next++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private void addNeighbor(ArrayList<Tile> neighbors, int x, int y,
+			ETileType type) {
+		Tile tile = get(x, y);
+		if (tile != null && tile.getType() == type) {
+			neighbors.add(tile);
+		}
+	}
+}
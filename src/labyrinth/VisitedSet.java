@@ -0,0 +1,45 @@
+package labyrinth;
+
+/**
+ * Set of tile indexes which can be cleared in constant time. Tiles are marked
+ * with the number of the current search, so the array only has to be
+ * allocated once per labyrinth size.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+class VisitedSet {
+
+	private int[] _marks = new int[0];
+	private int _epoch = 0;
+
+	/**
+	 * Removes all tiles from the set.
+	 * 
+	 * @param size
+	 *            Number of tiles in the labyrinth
+	 */
+	public void reset(int size) {
+		if (_marks.length != size || _epoch == Integer.MAX_VALUE) {
+			_marks = new int[size];
+			_epoch = 0;
+		}
+		_epoch++;
+	}
+
+	public boolean contains(int tile) {
+		return _marks[tile] == _epoch;
+	}
+
+	/**
+	 * @param tile
+	 * @return True if the tile was not in the set yet
+	 */
+	public boolean add(int tile) {
+		if (_marks[tile] == _epoch) {
+			return false;
+		}
+		_marks[tile] = _epoch;
+		return true;
+	}
+}
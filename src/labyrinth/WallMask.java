@@ -0,0 +1,162 @@
+package labyrinth;
+
+/**
+ * Remembers for every tile which of its eight neighbors are walls, so the
+ * painter does not have to look them up for every wall it paints. The masks
+ * are computed once and then updated locally whenever a wall changes.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class WallMask {
+
+	public static final int LEFT = 1;
+	public static final int UP = 1 << 1;
+	public static final int RIGHT = 1 << 2;
+	public static final int DOWN = 1 << 3;
+	public static final int UP_LEFT = 1 << 4;
+	public static final int UP_RIGHT = 1 << 5;
+	public static final int DOWN_LEFT = 1 << 6;
+	public static final int DOWN_RIGHT = 1 << 7;
+
+	/**
+	 * Larger labyrinths get no mask, it would need a byte per tile.
+	 */
+	public static final int MAX_TILES = 1 << 26;
+
+	// neighbor offsets in the order of the bits
+	private static final int[] DX = { -1, 0, 1, 0, -1, 1, -1, 1 };
+	private static final int[] DY = { 0, -1, 0, 1, -1, -1, 1, 1 };
+
+	private final Grid _grid;
+	private final byte[] _masks;
+
+	/**
+	 * Creates the masks of all tiles of a grid.
+	 * 
+	 * @param grid
+	 */
+	public WallMask(Grid grid) {
+		_grid = grid;
+		_masks = new byte[grid.size()];
+		compute();
+	}
+
+	public Grid getGrid() {
+		return _grid;
+	}
+
+	/**
+	 * @param index
+	 *            The tile
+	 * @return Mask with a bit set for every neighbor which is a wall
+	 */
+	public int get(int index) {
+		return _masks[index] & 0xff;
+	}
+
+	/**
+	 * Computes the masks of all tiles from scratch, using three rows of wall
+	 * bits at a time.
+	 */
+	public void compute() {
+		int width = _grid.getWidth();
+		int stride = (width + 63) >>> 6;
+		long[] above = new long[stride];
+		long[] row = new long[stride];
+		long[] below = new long[stride];
+		if (_grid.getHeight() > 0) {
+			_grid.copyRow(0, row);
+		}
+
+		for (int y = 0; y < _grid.getHeight(); y++) {
+			if (y + 1 < _grid.getHeight()) {
+				_grid.copyRow(y + 1, below);
+			} else {
+				clear(below);
+			}
+
+			int offset = _grid.index(0, y);
+			for (int x = 0; x < width; x++) {
+				int mask = 0;
+				if (isSet(row, x - 1)) {
+					mask |= LEFT;
+				}
+				if (isSet(above, x)) {
+					mask |= UP;
+				}
+				if (isSet(row, x + 1)) {
+					mask |= RIGHT;
+				}
+				if (isSet(below, x)) {
+					mask |= DOWN;
+				}
+				if (isSet(above, x - 1)) {
+					mask |= UP_LEFT;
+				}
+				if (isSet(above, x + 1)) {
+					mask |= UP_RIGHT;
+				}
+				if (isSet(below, x - 1)) {
+					mask |= DOWN_LEFT;
+				}
+				if (isSet(below, x + 1)) {
+					mask |= DOWN_RIGHT;
+				}
+				_masks[offset + x] = (byte) mask;
+			}
+
+			long[] swap = above;
+			above = row;
+			row = below;
+			below = swap;
+		}
+	}
+
+	/**
+	 * Updates the masks of the neighbors of a tile whose wall changed.
+	 * 
+	 * @param index
+	 *            The changed tile
+	 */
+	public void update(int index) {
+		int x = _grid.getX(index);
+		int y = _grid.getY(index);
+		for (int i = 0; i < DX.length; i++) {
+			int nx = x + DX[i];
+			int ny = y + DY[i];
+			if (_grid.contains(nx, ny)) {
+				_masks[_grid.index(nx, ny)] = (byte) compute(_grid, nx, ny);
+			}
+		}
+	}
+
+	/**
+	 * Computes the mask of a single tile by looking up its neighbors.
+	 * 
+	 * @param grid
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static int compute(Grid grid, int x, int y) {
+		int mask = 0;
+		for (int i = 0; i < DX.length; i++) {
+			if (grid.isWall(x + DX[i], y + DY[i])) {
+				mask |= 1 << i;
+			}
+		}
+		return mask;
+	}
+
+	private static boolean isSet(long[] words, int x) {
+		return x >= 0 && (x >>> 6) < words.length
+				&& (words[x >>> 6] & (1L << x)) != 0;
+	}
+
+	private static void clear(long[] words) {
+		for (int i = 0; i < words.length; i++) {
+			words[i] = 0L;
+		}
+	}
+}
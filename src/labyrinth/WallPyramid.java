@@ -0,0 +1,181 @@
+package labyrinth;
+
+/**
+ * Stores how dense the walls of a labyrinth are at several levels of detail,
+ * so a labyrinth with more tiles than pixels can be painted without looking
+ * at every tile. Level 0 are the tiles themselves, every cell of level
+ * <code>k</code> covers 2<sup>k</sup> x 2<sup>k</sup> tiles and holds the
+ * share of walls among them from 0 (no wall) to 255 (only walls).
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class WallPyramid {
+
+	/**
+	 * Larger labyrinths get no pyramid, it would need a third of a byte per
+	 * tile.
+	 */
+	public static final int MAX_TILES = 1 << 27;
+
+	private final Grid _grid;
+	private final byte[][] _levels;
+	private final int[] _widths;
+	private final int[] _heights;
+
+	/**
+	 * Creates the levels of a grid down to a single cell.
+	 * 
+	 * @param grid
+	 */
+	public WallPyramid(Grid grid) {
+		_grid = grid;
+
+		int count = 1;
+		int width = grid.getWidth();
+		int height = grid.getHeight();
+		while (width > 1 || height > 1) {
+			width = (width + 1) >>> 1;
+			height = (height + 1) >>> 1;
+			count++;
+		}
+		_levels = new byte[count][];
+		_widths = new int[count];
+		_heights = new int[count];
+		_widths[0] = grid.getWidth();
+		_heights[0] = grid.getHeight();
+		for (int level = 1; level < count; level++) {
+			_widths[level] = (_widths[level - 1] + 1) >>> 1;
+			_heights[level] = (_heights[level - 1] + 1) >>> 1;
+			_levels[level] = new byte[_widths[level] * _heights[level]];
+		}
+
+		compute();
+	}
+
+	public Grid getGrid() {
+		return _grid;
+	}
+
+	/**
+	 * @return Number of levels including level 0
+	 */
+	public int getLevels() {
+		return _levels.length;
+	}
+
+	/**
+	 * @param level
+	 *            Level from 1 to {@link #getLevels()} - 1
+	 * @return The densities of the level row by row, not to be modified
+	 */
+	public byte[] getLevel(int level) {
+		return _levels[level];
+	}
+
+	public int getWidth(int level) {
+		return _widths[level];
+	}
+
+	public int getHeight(int level) {
+		return _heights[level];
+	}
+
+	/**
+	 * Computes all levels from scratch. Level 1 is counted from two rows of
+	 * wall bits at a time, every further level from the one before.
+	 */
+	public void compute() {
+		if (_levels.length < 2) {
+			return;
+		}
+
+		int stride = (_grid.getWidth() + 63) >>> 6;
+		long[] upper = new long[stride];
+		long[] lower = new long[stride];
+		byte[] densities = _levels[1];
+		for (int y = 0; y < _heights[1]; y++) {
+			_grid.copyRow(2 * y, upper);
+			int rows = 1;
+			if (2 * y + 1 < _heights[0]) {
+				_grid.copyRow(2 * y + 1, lower);
+				rows = 2;
+			}
+
+			int offset = y * _widths[1];
+			for (int x = 0; x < _widths[1]; x++) {
+				int column = 2 * x;
+				int walls = (int) (upper[column >>> 6] >>> column) & 3;
+				if (rows == 2) {
+					walls |= ((int) (lower[column >>> 6] >>> column) & 3) << 2;
+				}
+				int count = Integer.bitCount(walls);
+				int tiles = rows * Math.min(2, _widths[0] - column);
+				densities[offset + x] = (byte) (count * 255 / tiles);
+			}
+		}
+
+		for (int level = 2; level < _levels.length; level++) {
+			for (int y = 0; y < _heights[level]; y++) {
+				for (int x = 0; x < _widths[level]; x++) {
+					reduce(level, x, y);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the cells covering a tile whose wall changed.
+	 * 
+	 * @param index
+	 *            The changed tile
+	 */
+	public void update(int index) {
+		if (_levels.length < 2) {
+			return;
+		}
+
+		int x = _grid.getX(index) >>> 1;
+		int y = _grid.getY(index) >>> 1;
+		int count = 0;
+		int tiles = 0;
+		for (int ty = 2 * y; ty < Math.min(2 * y + 2, _heights[0]); ty++) {
+			for (int tx = 2 * x; tx < Math.min(2 * x + 2, _widths[0]); tx++) {
+				if (_grid.isWall(_grid.index(tx, ty))) {
+					count++;
+				}
+				tiles++;
+			}
+		}
+		_levels[1][y * _widths[1] + x] = (byte) (count * 255 / tiles);
+
+		for (int level = 2; level < _levels.length; level++) {
+			x >>>= 1;
+			y >>>= 1;
+			reduce(level, x, y);
+		}
+	}
+
+	/**
+	 * Computes the density of a cell as the mean of the cells it covers on
+	 * the level below.
+	 * 
+	 * @param level
+	 * @param x
+	 * @param y
+	 */
+	private void reduce(int level, int x, int y) {
+		byte[] below = _levels[level - 1];
+		int width = _widths[level - 1];
+		int height = _heights[level - 1];
+		int sum = 0;
+		int cells = 0;
+		for (int by = 2 * y; by < Math.min(2 * y + 2, height); by++) {
+			for (int bx = 2 * x; bx < Math.min(2 * x + 2, width); bx++) {
+				sum += below[by * width + bx] & 0xff;
+				cells++;
+			}
+		}
+		_levels[level][y * _widths[level] + x] = (byte) (sum / cells);
+	}
+}
@@ -0,0 +1,51 @@
+package labyrinth;
+
+import java.util.Random;
+
+/**
+ * Wilson's algorithm. From every cell outside of the labyrinth a random walk
+ * is made until it hits the labyrinth. Only the last direction taken out of
+ * every visited cell is remembered, which erases the loops of the walk, and
+ * the loop-erased walk is added to the labyrinth. The result is a uniformly
+ * chosen spanning tree.
+ * 
+ * @author Sebastian Häni <haeni.sebastian@gmail.com>
+ * 
+ */
+public class WilsonGenerator extends LatticeGenerator {
+
+	@Override
+	public EGeneratorType getType() {
+		return EGeneratorType.Wilson;
+	}
+
+	@Override
+	protected void generate(Random random) {
+		int cells = _columns * _rows;
+		boolean[] inside = new boolean[cells];
+		int[] next = new int[cells];
+		int[] neighbors = new int[4];
+
+		int root = random.nextInt(cells);
+		inside[root] = true;
+		carveCell(root);
+
+		for (int start = 0; start < cells; start++) {
+			if (inside[start]) {
+				continue;
+			}
+
+			int cell = start;
+			while (!inside[cell]) {
+				int count = getNeighbors(cell, neighbors);
+				next[cell] = neighbors[random.nextInt(count)];
+				cell = next[cell];
+			}
+
+			for (cell = start; !inside[cell]; cell = next[cell]) {
+				inside[cell] = true;
+				carvePassage(cell, next[cell]);
+			}
+		}
+	}
+}